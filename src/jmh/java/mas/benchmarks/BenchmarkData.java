@@ -0,0 +1,104 @@
+package mas.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import mas.logic.EvaluationService.IssueParameters;
+import mas.logic.EvaluationService.IssueType;
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import mas.models.NegotiationResult;
+import mas.models.ProductBundle;
+
+/**
+ * Geração determinística (semente fixa) das entradas dos benchmarks.
+ * Os issues alternam COST, BENEFIT e QUALITATIVE, como price/delivery/quality no config.
+ */
+final class BenchmarkData {
+
+    private static final String[] TERMS = {"very poor", "poor", "medium", "good", "very good"};
+
+    private BenchmarkData() {
+    }
+
+    static String issueName(int i) {
+        return "issue" + i;
+    }
+
+    static IssueType issueType(int i) {
+        switch (i % 3) {
+            case 0: return IssueType.COST;
+            case 1: return IssueType.BENEFIT;
+            default: return IssueType.QUALITATIVE;
+        }
+    }
+
+    static Map<String, Double> weights(int issueCount) {
+        Map<String, Double> weights = new HashMap<>();
+        for (int i = 0; i < issueCount; i++) {
+            weights.put(issueName(i), 1.0 / issueCount);
+        }
+        return weights;
+    }
+
+    static Map<String, IssueParameters> issueParams(int issueCount) {
+        Map<String, IssueParameters> params = new HashMap<>();
+        for (int i = 0; i < issueCount; i++) {
+            IssueType type = issueType(i);
+            params.put(issueName(i), type == IssueType.QUALITATIVE
+                    ? new IssueParameters(0, 0, type)
+                    : new IssueParameters(10.0 + i, 100.0 + i, type));
+        }
+        return params;
+    }
+
+    static Bid bid(Random random, int issueCount, int productCount) {
+        List<NegotiationIssue> issues = new ArrayList<>(issueCount);
+        for (int i = 0; i < issueCount; i++) {
+            Object value = issueType(i) == IssueType.QUALITATIVE
+                    ? TERMS[random.nextInt(TERMS.length)]
+                    : 10.0 + i + random.nextDouble() * 90.0;
+            // Nomes capitalizados como nas mensagens reais (o serviço normaliza para minúsculas).
+            issues.add(new NegotiationIssue("Issue" + i, value));
+        }
+        int[] products = new int[productCount];
+        int[] quantities = new int[productCount];
+        products[random.nextInt(productCount)] = 1;
+        for (int p = 0; p < productCount; p++) {
+            if (random.nextInt(3) == 0) products[p] = 1;
+            if (products[p] > 0) quantities[p] = 500 + random.nextInt(2000);
+        }
+        return new Bid(new ProductBundle(products), issues, quantities);
+    }
+
+    static List<Bid> bids(long seed, int count, int issueCount, int productCount) {
+        Random random = new Random(seed);
+        List<Bid> bids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            bids.add(bid(random, issueCount, productCount));
+        }
+        return bids;
+    }
+
+    /**
+     * Resultados de negociação com utilidades aleatórias espalhados por {@code supplierCount} fornecedores.
+     */
+    static List<NegotiationResult> results(long seed, int count, int productCount, int supplierCount) {
+        Random random = new Random(seed);
+        List<NegotiationResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new NegotiationResult(bid(random, 2, productCount),
+                    0.1 + random.nextDouble() * 0.9, "s" + (i % supplierCount)));
+        }
+        return results;
+    }
+
+    static int[] fullDemand(int productCount) {
+        int[] demand = new int[productCount];
+        for (int p = 0; p < productCount; p++) demand[p] = 1;
+        return demand;
+    }
+}
@@ -0,0 +1,69 @@
+package mas.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import mas.logic.ConcessionSchedule;
+import mas.logic.ConcessionService;
+import mas.logic.EvaluationService.IssueParameters;
+import mas.models.Bid;
+
+/**
+ * Custo de {@link ConcessionService#generateCounterBid} ao gerar a contraproposta
+ * de uma rodada (um contra-lance por pacote), com α(t) recalculado ou lido de um {@link ConcessionSchedule}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConcessionServiceBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int issueCount;
+
+    @Param({"1", "10", "100"})
+    public int bundleCount;
+
+    @Param({"0.5", "2.0"})
+    public double gamma;
+
+    private final ConcessionService concessionService = new ConcessionService();
+    private List<Bid> referenceBids;
+    private Map<String, IssueParameters> issueParams;
+    private ConcessionSchedule schedule;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        referenceBids = BenchmarkData.bids(7L, bundleCount, issueCount, 4);
+        issueParams = BenchmarkData.issueParams(issueCount);
+        schedule = ConcessionSchedule.of(10, gamma, 0.1);
+    }
+
+    @Benchmark
+    public void counterProposal(Blackhole bh) {
+        // Percorre as rodadas 1..10 para não fixar um único ramo da Eq. 5.
+        round = round % 10 + 1;
+        for (Bid bid : referenceBids) {
+            bh.consume(concessionService.generateCounterBid(bid, round, 10, gamma, 0.1, issueParams, "buyer"));
+        }
+    }
+
+    @Benchmark
+    public void counterProposalWithSchedule(Blackhole bh) {
+        round = round % 10 + 1;
+        for (Bid bid : referenceBids) {
+            bh.consume(concessionService.generateCounterBid(bid, round, schedule, issueParams, "buyer"));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package mas.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import mas.logic.CompiledUtilityEvaluator;
+import mas.logic.EvaluationService;
+import mas.logic.EvaluationService.IssueParameters;
+import mas.models.Bid;
+
+/**
+ * Custo de {@link EvaluationService#calculateUtility} ao avaliar uma proposta inteira,
+ * como o comprador faz em EvaluateProposal a cada rodada, comparado ao {@link CompiledUtilityEvaluator}
+ * lance a lance e em lote (formato colunar).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EvaluationServiceBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int issueCount;
+
+    @Param({"1", "10", "100"})
+    public int bidCount;
+
+    @Param({"0.5", "1.0", "2.0"})
+    public double riskBeta;
+
+    private EvaluationService evaluationService;
+    private CompiledUtilityEvaluator compiledEvaluator;
+    private List<Bid> bids;
+    private Map<String, Double> weights;
+    private Map<String, IssueParameters> issueParams;
+
+    @Setup
+    public void setUp() {
+        evaluationService = new EvaluationService();
+        bids = BenchmarkData.bids(42L, bidCount, issueCount, 4);
+        weights = BenchmarkData.weights(issueCount);
+        issueParams = BenchmarkData.issueParams(issueCount);
+        compiledEvaluator = evaluationService.compile("buyer", weights, issueParams, riskBeta);
+    }
+
+    @Benchmark
+    public void evaluateProposal(Blackhole bh) {
+        for (Bid bid : bids) {
+            bh.consume(evaluationService.calculateUtility("buyer", bid, weights, issueParams, riskBeta));
+        }
+    }
+
+    @Benchmark
+    public void evaluateProposalCompiled(Blackhole bh) {
+        for (Bid bid : bids) {
+            bh.consume(compiledEvaluator.evaluate(bid));
+        }
+    }
+
+    @Benchmark
+    public double[] evaluateProposalBatch() {
+        return evaluationService.calculateUtilities(compiledEvaluator, bids);
+    }
+}
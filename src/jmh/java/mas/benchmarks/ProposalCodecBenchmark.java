@@ -0,0 +1,77 @@
+package mas.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.UnreadableException;
+import mas.agents.ProposalMessages;
+import mas.logic.ProposalCodec;
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import mas.models.Proposal;
+
+/**
+ * Ida e volta de uma proposta pelo conteúdo de uma ACLMessage: o caminho antigo
+ * (setContentObject/getContentObject) contra o codec binário compacto.
+ * O tamanho do conteúdo de cada caminho é impresso no setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProposalCodecBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int bidCount;
+
+    private final ProposalCodec compact = ProposalCodec.compactBinary();
+    private Proposal proposal;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Issues como os das negociações reais: price/delivery numéricos, quality/service linguísticos.
+        List<Bid> bids = new ArrayList<>();
+        String[] terms = {"very poor", "poor", "medium", "good", "very good"};
+        for (Bid bid : BenchmarkData.bids(13L, bidCount, 1, 4)) {
+            List<NegotiationIssue> issues = new ArrayList<>();
+            issues.add(new NegotiationIssue("Price", 50.0 + bids.size() * 0.25));
+            issues.add(new NegotiationIssue("Quality", terms[bids.size() % terms.length]));
+            issues.add(new NegotiationIssue("Delivery", 18.0 - bids.size() % 10));
+            issues.add(new NegotiationIssue("Service", terms[(bids.size() + 2) % terms.length]));
+            bids.add(new Bid(bid.getProductBundle(), issues, bid.getQuantities()));
+        }
+        proposal = new Proposal(bids);
+
+        ACLMessage javaMsg = new ACLMessage(ACLMessage.PROPOSE);
+        javaMsg.setContentObject(proposal);
+        ACLMessage compactMsg = new ACLMessage(ACLMessage.PROPOSE);
+        ProposalMessages.write(compactMsg, proposal, compact);
+        System.out.printf("%n[%d bids] content bytes: setContentObject=%d, compact=%d%n", bidCount,
+                javaMsg.getByteSequenceContent().length, compactMsg.getByteSequenceContent().length);
+    }
+
+    @Benchmark
+    public Object javaSerialization() throws IOException, UnreadableException {
+        ACLMessage msg = new ACLMessage(ACLMessage.PROPOSE);
+        msg.setContentObject(proposal);
+        return msg.getContentObject();
+    }
+
+    @Benchmark
+    public Proposal compactBinary() throws IOException {
+        ACLMessage msg = new ACLMessage(ACLMessage.PROPOSE);
+        ProposalMessages.write(msg, proposal, compact);
+        return ProposalMessages.read(msg);
+    }
+}
@@ -0,0 +1,54 @@
+package mas.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import mas.logic.WinnerDeterminationService;
+import mas.logic.WinnerDeterminationService.SolverMode;
+import mas.models.NegotiationResult;
+
+/**
+ * Custo de {@link WinnerDeterminationService#solveWDPWithBranchAndBound} por modo de
+ * resolução, número de resultados e número de produtos demandados.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WinnerDeterminationBenchmark {
+
+    @Param({"8", "16", "24"})
+    public int resultCount;
+
+    @Param({"4", "8"})
+    public int productCount;
+
+    @Param({"LIST", "BITMASK", "DYNAMIC_PROGRAMMING", "AUTO"})
+    public SolverMode mode;
+
+    private final WinnerDeterminationService wds = new WinnerDeterminationService();
+    private List<NegotiationResult> results;
+    private int[] demand;
+
+    @Setup
+    public void setUp() {
+        wds.setSolverMode(mode);
+        results = BenchmarkData.results(11L, resultCount, productCount, Math.max(2, resultCount / 2));
+        demand = BenchmarkData.fullDemand(productCount);
+    }
+
+    @Benchmark
+    public List<NegotiationResult> solve() {
+        // O modo LIST ordena a lista recebida; cada chamada trabalha sobre uma cópia.
+        return wds.solveWDPWithBranchAndBound(new ArrayList<>(results), demand);
+    }
+}
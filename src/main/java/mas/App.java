@@ -5,34 +5,77 @@ import jade.core.ProfileImpl;
 import jade.core.Runtime;
 import jade.wrapper.AgentController;
 import jade.wrapper.ContainerController;
+import mas.logic.ConfigLoader;
 
+/**
+ * Inicializa a plataforma.
+ * <p>
+ * Argumentos (sobrepõem o config.properties):
+ * --headless        sem GUI, sem Sniffer e sem registro de agentes no Sniffer ('app.headless');
+ * --sellers=N       número de SellerAgents s1..sN ('app.sellerCount', padrão 3).
+ */
 public class App {
+    private static final int DEFAULT_SELLER_COUNT = 3;
+    private static final String USAGE = "Usage: App [--headless] [--sellers=N]\n"
+            + "  --headless     no GUI, no Sniffer ('app.headless')\n"
+            + "  --sellers=N    number of SellerAgents s1..sN, N > 0 ('app.sellerCount', default "
+            + DEFAULT_SELLER_COUNT + ")";
+
     public static void main(String[] args) throws Exception {
+        ConfigLoader config = ConfigLoader.getInstance();
+        boolean headless = Boolean.parseBoolean(config.getString("app.headless"));
+        int sellerCount = config.getInt("app.sellerCount", DEFAULT_SELLER_COUNT);
+        if (sellerCount <= 0) {
+            System.err.println("[App] Invalid app.sellerCount " + sellerCount + ", using " + DEFAULT_SELLER_COUNT);
+            sellerCount = DEFAULT_SELLER_COUNT;
+        }
+        for (String arg : args) {
+            if ("--headless".equals(arg)) {
+                headless = true;
+            } else if (arg.startsWith("--sellers=")) {
+                sellerCount = parseSellerCount(arg.substring("--sellers=".length()), sellerCount);
+            }
+        }
+
         Runtime rt = Runtime.instance();
         Profile p = new ProfileImpl();
-        p.setParameter(Profile.GUI, "true");
+        p.setParameter(Profile.GUI, Boolean.toString(!headless));
         ContainerController cc = rt.createMainContainer(p);
 
-        AgentController sniffer = cc.createNewAgent("sniffer", "jade.tools.sniffer.Sniffer", new Object[]{});
-        sniffer.start();
-        
+        if (!headless) {
+            AgentController sniffer = cc.createNewAgent("sniffer", "jade.tools.sniffer.Sniffer", new Object[]{});
+            sniffer.start();
+        }
+
         AgentController httpBridge = cc.createNewAgent("httpbridge", "mas.agents.HttpBridgeAgent", null);
-        AgentController ca = cc.createNewAgent("ca", "mas.agents.CoordinatorAgent", null);
+        AgentController ca = cc.createNewAgent("ca", "mas.agents.CoordinatorAgent", new Object[]{!headless});
         AgentController sda = cc.createNewAgent("sda", "mas.agents.SynergyDeterminationAgent", null);
         AgentController tda = cc.createNewAgent("tda", "mas.agents.TaskDecomposerAgent", null);
-        AgentController s1 = cc.createNewAgent("s1", "mas.agents.SellerAgent", null);
-        AgentController s2 = cc.createNewAgent("s2", "mas.agents.SellerAgent", null);
-        AgentController s3 = cc.createNewAgent("s3", "mas.agents.SellerAgent", null);
 
         httpBridge.start();
         ca.start();
         sda.start();
         tda.start();
-        s1.start();
-        s2.start();
-        s3.start();
-        
-        AgentController snifferConfig = cc.createNewAgent("snifferConfig", "mas.agents.SnifferConfigAgent", null);
-        snifferConfig.start();
+        for (int i = 1; i <= sellerCount; i++) {
+            cc.createNewAgent("s" + i, "mas.agents.SellerAgent", null).start();
+        }
+
+        if (!headless) {
+            AgentController snifferConfig = cc.createNewAgent("snifferConfig", "mas.agents.SnifferConfigAgent", null);
+            snifferConfig.start();
+        }
+    }
+
+    /** Valor de --sellers=N; se inválido (não numérico ou N &lt;= 0), mostra o uso e mantém o atual. */
+    private static int parseSellerCount(String value, int current) {
+        try {
+            int count = Integer.parseInt(value.trim());
+            if (count > 0) return count;
+        } catch (NumberFormatException e) {
+            // cai no aviso abaixo
+        }
+        System.err.println("[App] Invalid --sellers value '" + value + "', using " + current);
+        System.err.println(USAGE);
+        return current;
     }
 }
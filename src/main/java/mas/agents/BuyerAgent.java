@@ -2,17 +2,17 @@ package mas.agents;
 
 import jade.core.AID;
 import jade.core.Agent;
-import jade.core.behaviours.Behaviour;
-import jade.core.behaviours.FSMBehaviour;
-import jade.core.behaviours.OneShotBehaviour;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
-import jade.lang.acl.UnreadableException;
+import mas.logic.CompiledUtilityEvaluator;
+import mas.logic.ConcessionSchedule;
 import mas.logic.ConcessionService;
 import mas.logic.ConfigLoader;
 import mas.logic.EvaluationService;
 import mas.logic.EvaluationService.IssueParameters;
 import mas.logic.EvaluationService.IssueType;
+import mas.logic.ProposalCodec;
 import mas.models.Bid;
 import mas.models.NegotiationResult;
 import mas.models.Proposal;
@@ -20,66 +20,65 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Representa a empresa compradora na negociação bilateral.
- * Este agente é criado pelo CoordinatorAgent para negociar com um SellerAgent específico.
- * Ele implementa uma Máquina de Estados Finitos (FSM) para gerenciar o protocolo de
- * oferta alternada (alternating-offer protocol).
+ * Representa a empresa compradora na negociação bilateral (protocolo de oferta alternada).
+ * <p>
+ * Este agente é mantido em um pool pelo CoordinatorAgent e reutilizado entre ciclos de demanda.
+ * Cada atribuição (protocolo 'assign-negotiation-protocol') traz um ou mais vendedores: para cada
+ * um o agente abre uma {@link NegotiationSession} própria, identificada pelo conversation-id, e um
+ * único comportamento cíclico ({@link NegotiationDispatcher}) despacha as mensagens para a sessão
+ * correspondente. Todas as sessões compartilham o mesmo perfil de preferências (avaliador compilado),
+ * carregado uma única vez no setup. Quando todas as sessões de uma atribuição terminam, os resultados
+ * são enviados ao Coordenador em uma única mensagem.
  * <p>
  * TODO (Simplificação de Arquitetura):
  * Esta implementação negocia apenas UM ÚNICO LANCE (Bid) com o vendedor.
  * O artigo exige que o BA negocie uma PROPOSTA (Proposal) contendo MÚLTIPLOS LANCES
- * simultaneamente. A lógica nos estados (ex: EvaluateProposal)
- * deve ser refatorada para iterar sobre uma lista de lances "bid-by-bid",
- * em vez de apenas processar `getBids().get(0)`.
+ * simultaneamente. A lógica de avaliação deve ser refatorada para iterar sobre uma
+ * lista de lances "bid-by-bid", em vez de apenas processar `getBids().get(0)`.
  */
 public class BuyerAgent extends Agent {
     private static final Logger logger = LoggerFactory.getLogger(BuyerAgent.class);
 
     private static final String PROTOCOL_REPORT_RESULT = "report-negotiation-result";
-    
-    private static final String STATE_SEND_REQUEST = "SendRequest";
-    private static final String STATE_WAIT_FOR_PROPOSAL = "WaitForProposal";
-    private static final String STATE_EVALUATE_PROPOSAL = "EvaluateProposal";
-    private static final String STATE_ACCEPT_OFFER = "AcceptOffer";
-    private static final String STATE_MAKE_COUNTER_OFFER = "MakeCounterOffer";
-    private static final String STATE_END_NEGOTIATION = "EndNegotiation";
-
-    private AID sellerAgent;
+    static final String PROTOCOL_ASSIGN_NEGOTIATION = "assign-negotiation-protocol";
+
+    /** Separador dos vendedores no conteúdo de uma atribuição (nomes completos dos AIDs). */
+    static final String SELLER_SEPARATOR = ",";
+
     private AID coordinatorAgent;
-    private ACLMessage receivedProposalMsg;
-    private Bid finalAcceptedBid = null;
-    private double finalUtility = 0.0;
-    private boolean negotiationFinished = false;
-    private int currentRound = 0;
-    private String negotiationId;
-    private String lastMessageReplyWith;
-    
+
+    /** Negociações em andamento, por conversation-id. */
+    private final Map<String, NegotiationSession> sessions = new HashMap<>();
+
     private EvaluationService evalService;
+    private CompiledUtilityEvaluator buyerEvaluator;
     private ConcessionService concessionService;
+    private ConcessionSchedule concessionSchedule;
+    private ProposalCodec proposalCodec;
     private Map<String, Double> weights;
     private Map<String, IssueParameters> issueParams;
+    /** Parâmetros por pacote ('params.&lt;pacote&gt;.&lt;issue&gt;'), por máscara do pacote. */
+    private Map<Long, Map<String, IssueParameters>> bundleIssueParams;
     private double acceptanceThreshold;
     private double buyerRiskBeta;
     private double buyerGamma;
     private int maxRounds;
     private double discountRate;
-    private Bid lastSentCounterBid = null;
+    /** Sem resposta do vendedor por este tempo, a sessão é encerrada. */
+    private long responseTimeoutMillis;
 
     protected void setup() {
         logger.info("Buyer Agent {} is ready.", getAID().getName());
 
         Object[] args = getArguments();
-        if (args != null && args.length > 1) {
-            sellerAgent = (AID) args[0];
+        if (args != null && args.length > 1 && args[1] instanceof AID) {
             coordinatorAgent = (AID) args[1];
-            logger.info("{}: Assigned seller is {}", getName(), sellerAgent.getName());
         } else {
             logger.error("{}: Missing arguments (sellerAID, coordinatorAID). Terminating.", getName());
             doDelete();
@@ -87,32 +86,14 @@ public class BuyerAgent extends Agent {
         }
 
         setupBuyerPreferences();
+        addBehaviour(new NegotiationDispatcher());
 
-        FSMBehaviour fsm = new FSMBehaviour(this) {
-            @Override
-            public int onEnd() {
-                logger.info("{}: FSM finished negotiation with {}.", myAgent.getLocalName(), sellerAgent.getLocalName());
-                myAgent.addBehaviour(new InformCoordinatorDone());
-                return super.onEnd();
-            }
-        };
-        fsm.registerFirstState(new SendRequest(), STATE_SEND_REQUEST);
-        fsm.registerState(new WaitForProposal(this), STATE_WAIT_FOR_PROPOSAL);
-        fsm.registerState(new EvaluateProposal(), STATE_EVALUATE_PROPOSAL);
-        fsm.registerState(new AcceptOffer(), STATE_ACCEPT_OFFER);
-        fsm.registerState(new MakeCounterOffer(), STATE_MAKE_COUNTER_OFFER);
-        fsm.registerLastState(new EndNegotiation(), STATE_END_NEGOTIATION);
-        fsm.registerDefaultTransition(STATE_SEND_REQUEST, STATE_WAIT_FOR_PROPOSAL);
-        fsm.registerTransition(STATE_WAIT_FOR_PROPOSAL, STATE_EVALUATE_PROPOSAL, 1); // 1 = Proposta recebida
-        fsm.registerTransition(STATE_WAIT_FOR_PROPOSAL, STATE_END_NEGOTIATION, 0);  // 0 = Timeout ou erro
-        fsm.registerTransition(STATE_WAIT_FOR_PROPOSAL, STATE_END_NEGOTIATION, 2);  // 2 = Vendedor aceitou
-        fsm.registerTransition(STATE_EVALUATE_PROPOSAL, STATE_ACCEPT_OFFER, 1);      // Utilidade aceitável
-        fsm.registerTransition(STATE_EVALUATE_PROPOSAL, STATE_MAKE_COUNTER_OFFER, 0);// Utilidade baixa, fazer contraproposta
-        fsm.registerTransition(STATE_EVALUATE_PROPOSAL, STATE_END_NEGOTIATION, 2);   // Deadline atingido ou falha
-        fsm.registerDefaultTransition(STATE_ACCEPT_OFFER, STATE_END_NEGOTIATION);
-        fsm.registerDefaultTransition(STATE_MAKE_COUNTER_OFFER, STATE_WAIT_FOR_PROPOSAL);
-
-        addBehaviour(fsm);
+        // Sem vendedor nos argumentos o agente fica ocioso no pool, aguardando atribuições.
+        // Um terceiro argumento opcional informa o id do ciclo de demanda.
+        if (args[0] instanceof AID) {
+            long cycleId = args.length > 2 && args[2] instanceof Number ? ((Number) args[2]).longValue() : -1;
+            startNegotiations(List.of((AID) args[0]), cycleId);
+        }
     }
 
     private void setupBuyerPreferences() {
@@ -125,6 +106,9 @@ public class BuyerAgent extends Agent {
         this.buyerGamma = config.getDouble("buyer.gamma");
         this.maxRounds = config.getInt("negotiation.maxRounds");
         this.discountRate = config.getDouble("negotiation.discountRate");
+        this.responseTimeoutMillis = config.getInt("negotiation.responseTimeoutMillis", 15000);
+        this.concessionSchedule = ConcessionSchedule.of(maxRounds, buyerGamma, discountRate);
+        this.proposalCodec = ProposalCodec.byName(config.getString("message.codec"));
 
         weights = new HashMap<>();
         weights.put("price", config.getDouble("weights.price"));
@@ -137,6 +121,11 @@ public class BuyerAgent extends Agent {
         loadIssueParams(config, "delivery", IssueType.COST);
         issueParams.put("quality", new IssueParameters(0, 1, IssueType.QUALITATIVE));
         issueParams.put("service", new IssueParameters(0, 1, IssueType.QUALITATIVE));
+
+        // Avaliado várias vezes por lance a cada rodada: compila uma vez,
+        // já com os intervalos por pacote ('params.<pacote>.<issue>').
+        this.bundleIssueParams = evalService.loadBundleParams("params.", issueParams);
+        this.buyerEvaluator = evalService.compile("buyer", weights, issueParams, bundleIssueParams, buyerRiskBeta);
     }
 
     private void loadIssueParams(ConfigLoader config, String issueName, IssueType type) {
@@ -157,362 +146,377 @@ public class BuyerAgent extends Agent {
     }
 
     /**
-     * Estado 1: Envia o "Call for Proposal" (CFP) para o Vendedor.
-     * Inicia a negociação.
+     * Abre uma sessão por vendedor; os resultados são reportados juntos ao fim da última.
      */
-    private class SendRequest extends OneShotBehaviour {
-        @Override
-        public void action() {
-            currentRound = 1;
-            negotiationId = "neg-" + sellerAgent.getLocalName() + "-" + System.currentTimeMillis();
-            logger.info("{} [R{}]: Sending call for proposal to {}", myAgent.getLocalName(), currentRound, sellerAgent.getLocalName());
-            ACLMessage cfp = new ACLMessage(ACLMessage.REQUEST);
-            cfp.addReceiver(sellerAgent);
-            cfp.setContent("send-proposal");
-            cfp.setConversationId(negotiationId);
-            lastMessageReplyWith = "req-" + negotiationId + "-" + System.currentTimeMillis();
-            cfp.setReplyWith(lastMessageReplyWith);
-            myAgent.send(cfp);
+    private void startNegotiations(List<AID> sellers, long cycleId) {
+        NegotiationBatch batch = new NegotiationBatch(sellers.size(), cycleId);
+        for (AID seller : sellers) {
+            NegotiationSession session = new NegotiationSession(seller, batch);
+            sessions.put(session.negotiationId, session);
+            session.start();
         }
     }
 
     /**
-     * Estado 2: Aguarda uma resposta (Proposta) do Vendedor.
-     * Implementa um timeout para evitar bloqueio infinito.
-     */
-    /**
-     * Estado 2: Aguarda uma resposta (Proposta OU Aceitação) do Vendedor.
-     * Implementa um timeout para evitar bloqueio infinito.
-     * Esta versão foi CORRIGIDA para lidar com ACCEPT_PROPOSAL.
+     * Laço único de recepção: atribuições do Coordenador abrem sessões; PROPOSE/ACCEPT_PROPOSAL
+     * seguem para a sessão da sua conversa. Sem mensagens, o comportamento fica bloqueado até a próxima chegar.
      */
-    private class WaitForProposal extends Behaviour {
-        private boolean responseReceived = false;
-        private long startTime;
-        private long timeoutMillis = 15000;
-        private int exitValue = 0; // 0=Timeout, 1=Propose (avaliar), 2=Accept (terminar)
-
-        public WaitForProposal(Agent a) {
-            super(a);
-        }
-
-        @Override
-        public void onStart() {
-            responseReceived = false;
-            startTime = System.currentTimeMillis();
-            exitValue = 0; // Reseta o valor de saída
-            receivedProposalMsg = null; // Limpa mensagem anterior para evitar re-processamento
-        }
+    private class NegotiationDispatcher extends CyclicBehaviour {
+        private final MessageTemplate template = MessageTemplate.or(
+                MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                        MessageTemplate.MatchProtocol(PROTOCOL_ASSIGN_NEGOTIATION)
+                ),
+                MessageTemplate.or(
+                        MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
+                        MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL)
+                )
+        );
 
         @Override
         public void action() {
-            if (negotiationFinished) {
-                responseReceived = true;
-                exitValue = 0; // Timeout/ignore
+            ACLMessage msg = myAgent.receive(template);
+            if (msg == null) {
+                block();
                 return;
             }
-            logger.debug("{} [R{}]: Filtering messages with InReplyTo={}", myAgent.getLocalName(), currentRound, lastMessageReplyWith);
-            MessageTemplate acceptTemplate = MessageTemplate.and(
-                    MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL),
-                    MessageTemplate.and(
-                            MessageTemplate.and(
-                                    MessageTemplate.MatchSender(sellerAgent),
-                                    MessageTemplate.MatchConversationId(negotiationId)
-                            ),
-                            MessageTemplate.MatchInReplyTo(lastMessageReplyWith)
-                    )
-            );
-
-            ACLMessage acceptMsg = myAgent.receive(acceptTemplate);
-            if (acceptMsg != null) {
-                logger.debug("{} [R{}]: Received ACCEPT with InReplyTo={}", myAgent.getLocalName(), currentRound, acceptMsg.getInReplyTo());
-                
-                responseReceived = true;
-                receivedProposalMsg = acceptMsg;
-                logger.info("{} [R{}]: Seller ACCEPTED my last counter-offer.", myAgent.getLocalName(), currentRound);
-                negotiationFinished = true;
-                if (lastSentCounterBid != null) {
-                    finalAcceptedBid = lastSentCounterBid;
-                    finalUtility = evalService.calculateUtility("buyer", finalAcceptedBid, weights, issueParams, buyerRiskBeta);
-                    logger.info("{}: Final accepted bid utility = {}", myAgent.getLocalName(), String.format("%.4f", finalUtility));
+            if (msg.getPerformative() == ACLMessage.REQUEST) {
+                List<AID> sellers = parseAssignment(msg.getContent());
+                if (sellers.isEmpty()) {
+                    logger.warn("{}: Ignoring assignment without seller from {}", myAgent.getLocalName(), msg.getSender().getLocalName());
                 } else {
-                    logger.warn("{}: Seller accepted, but lastSentCounterBid is null!", myAgent.getLocalName());
+                    startNegotiations(sellers, parseCycleId(msg.getUserDefinedParameter(CoordinatorAgent.CYCLE_ID)));
                 }
-                exitValue = 2;
                 return;
             }
-
-            MessageTemplate mtPropose = MessageTemplate.and(
-                    MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
-                    MessageTemplate.and(
-                            MessageTemplate.and(
-                                    MessageTemplate.MatchSender(sellerAgent),
-                                    MessageTemplate.MatchConversationId(negotiationId)
-                            ),
-                            MessageTemplate.MatchInReplyTo(lastMessageReplyWith)
-                    )
-            );
-
-            ACLMessage proposeMsg = myAgent.receive(mtPropose);
-            if (proposeMsg != null) {
-                logger.debug("{} [R{}]: Received PROPOSE with InReplyTo={}, ReplyWith={}", 
-                    myAgent.getLocalName(), currentRound, proposeMsg.getInReplyTo(), proposeMsg.getReplyWith());
-                
-                responseReceived = true;
-                receivedProposalMsg = proposeMsg;
-                logger.info("{} [R{}]: Received PROPOSE from seller.", myAgent.getLocalName(), currentRound);
-                exitValue = 1;
+            NegotiationSession session = msg.getConversationId() == null ? null : sessions.get(msg.getConversationId());
+            if (session == null || !session.sellerAgent.equals(msg.getSender())) {
+                logger.debug("{}: Ignoring {} for unknown conversation {}", myAgent.getLocalName(),
+                        ACLMessage.getPerformative(msg.getPerformative()), msg.getConversationId());
                 return;
             }
-
-            long elapsed = System.currentTimeMillis() - startTime;
-            if (elapsed > timeoutMillis) {
-                logger.warn("{}: Timeout waiting for proposal from {}. Ending negotiation.", myAgent.getLocalName(), sellerAgent.getLocalName());
-                responseReceived = true;
-                exitValue = 0;
-            } else {
-                block(500);
+            session.onResponse(msg);
+            if (session.finished) {
+                sessions.remove(session.negotiationId);
+                removeBehaviour(session.deadline);
+                session.batch.onSessionFinished(session);
             }
         }
+    }
 
-        @Override
-        public boolean done() {
-            return responseReceived;
+    private static List<AID> parseAssignment(String content) {
+        List<AID> sellers = new ArrayList<>();
+        if (content == null) return sellers;
+        for (String name : content.split(SELLER_SEPARATOR)) {
+            if (!name.trim().isEmpty()) sellers.add(new AID(name.trim(), AID.ISGUID));
         }
+        return sellers;
+    }
 
-        @Override
-        public int onEnd() {
-            return exitValue;
+    private static long parseCycleId(String value) {
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
         }
     }
 
     /**
-     * Estado 3: Avalia a proposta recebida do Vendedor.
-     * Decide se aceita, rejeita (faz contraproposta) ou encerra por deadline.
-     * 
-     * IMPROVED: Now processes ALL bids in the proposal, not just the first one.
+     * Sessões abertas por uma mesma atribuição; reporta ao Coordenador quando a última termina.
      */
-    private class EvaluateProposal extends OneShotBehaviour {
-        private int transitionEvent = 2; // Default: falha/deadline
-        private List<Bid> acceptedBids = new ArrayList<>();
-        private List<Bid> rejectedBids = new ArrayList<>();
+    private class NegotiationBatch {
+        private final List<NegotiationSession> finishedSessions = new ArrayList<>();
+        private final int size;
+        private final long cycleId;
+
+        NegotiationBatch(int size, long cycleId) {
+            this.size = size;
+            this.cycleId = cycleId;
+        }
 
-        @Override
-        public void action() {
-            currentRound++;
-            logger.info("{} [R{}]: Evaluating proposal from {}", myAgent.getLocalName(), currentRound, sellerAgent.getLocalName());
+        void onSessionFinished(NegotiationSession session) {
+            logger.info("{}: Negotiation with {} finished ({} active).", getLocalName(), session.sellerAgent.getLocalName(), sessions.size());
+            finishedSessions.add(session);
+            if (finishedSessions.size() == size) {
+                informCoordinator();
+            }
+        }
 
-            if (receivedProposalMsg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
-                logger.info("{}: Received ACCEPT_PROPOSAL from seller - skipping evaluation and accepting immediately", myAgent.getLocalName());
-                try {
-                    Serializable content = receivedProposalMsg.getContentObject();
-                    if (content instanceof Proposal) {
-                        Proposal p = (Proposal) content;
-                        if (p.getBids() != null && !p.getBids().isEmpty()) {
-                            finalAcceptedBid = p.getBids().get(0);
-                            finalUtility = evalService.calculateUtility("buyer", finalAcceptedBid, weights, issueParams, buyerRiskBeta);
-                            transitionEvent = 1;
-                            return;
-                        }
-                    }
-                } catch (UnreadableException e) {
-                    logger.error("{}: Failed to read ACCEPT_PROPOSAL content", myAgent.getLocalName(), e);
+        /**
+         * Informa o Coordenador sobre o resultado das negociações.
+         * Uma única sessão envia o lance final (ou uma mensagem de falha), como antes;
+         * várias sessões enviam a lista dos resultados bem-sucedidos em uma só mensagem.
+         */
+        private void informCoordinator() {
+            ACLMessage doneMsg = new ACLMessage(ACLMessage.INFORM);
+            doneMsg.addReceiver(coordinatorAgent);
+            doneMsg.setProtocol(PROTOCOL_REPORT_RESULT);
+            if (cycleId >= 0) doneMsg.addUserDefinedParameter(CoordinatorAgent.CYCLE_ID, Long.toString(cycleId));
+            ArrayList<NegotiationResult> results = new ArrayList<>();
+            for (NegotiationSession session : finishedSessions) {
+                if (session.finalAcceptedBid != null) {
+                    results.add(new NegotiationResult(session.finalAcceptedBid, session.finalUtility, session.sellerAgent.getLocalName(), cycleId));
+                }
+            }
+            try {
+                if (size > 1) {
+                    doneMsg.setContentObject(results);
+                    logger.info("{}: Informing Coordinator of {} successful negotiation(s) out of {}.", getLocalName(), results.size(), size);
+                } else if (!results.isEmpty()) {
+                    doneMsg.setContentObject(results.get(0));
+                    logger.info("{}: Informing Coordinator of successful negotiation.", getLocalName());
+                } else {
+                    doneMsg.setContent("NegotiationFailed");
+                    logger.info("{}: Informing Coordinator of failed negotiation.", getLocalName());
                 }
+                send(doneMsg);
+            } catch (IOException e) {
+                logger.error("{}: Error sending result to Coordinator", getLocalName(), e);
             }
+        }
+    }
 
-            if (currentRound > maxRounds) {
-                logger.warn("{}: Deadline reached ({}/{}) . Ending negotiation.", myAgent.getLocalName(), currentRound, maxRounds);
-                finalAcceptedBid = null;
-                transitionEvent = 2;
+    /**
+     * Estado de uma negociação bilateral com um vendedor (uma conversa).
+     * Fluxo: REQUEST -> (proposta -> avaliação -> aceitação | contraproposta)* ou aceitação do vendedor.
+     */
+    private class NegotiationSession {
+        private final AID sellerAgent;
+        private final NegotiationBatch batch;
+        private final String negotiationId;
+        private int currentRound;
+        private String lastMessageReplyWith;
+        private Bid lastSentCounterBid;
+        private Bid finalAcceptedBid;
+        private double finalUtility;
+        private long lastActivity = System.currentTimeMillis();
+        private boolean finished;
+        private final ResponseDeadline deadline;
+
+        NegotiationSession(AID sellerAgent, NegotiationBatch batch) {
+            this.sellerAgent = sellerAgent;
+            this.batch = batch;
+            this.negotiationId = "neg-" + sellerAgent.getLocalName() + "-" + getLocalName() + "-" + System.currentTimeMillis();
+            this.deadline = new ResponseDeadline(BuyerAgent.this, responseTimeoutMillis) {
+                @Override
+                protected long lastActivity() {
+                    return lastActivity;
+                }
+
+                @Override
+                protected void onExpired() {
+                    logger.warn("{}: Timeout waiting for proposal from {}. Ending negotiation.",
+                            getLocalName(), NegotiationSession.this.sellerAgent.getLocalName());
+                    sessions.remove(negotiationId);
+                    finished = true;
+                    NegotiationSession.this.batch.onSessionFinished(NegotiationSession.this);
+                }
+            };
+        }
+
+        /**
+         * Envia o "Call for Proposal" (CFP) para o Vendedor. Inicia a negociação.
+         */
+        void start() {
+            currentRound = 1;
+            logger.info("{} [R{}]: Sending call for proposal to {}", getLocalName(), currentRound, sellerAgent.getLocalName());
+            ACLMessage cfp = new ACLMessage(ACLMessage.REQUEST);
+            cfp.addReceiver(sellerAgent);
+            cfp.setContent("send-proposal");
+            cfp.setConversationId(negotiationId);
+            lastMessageReplyWith = "req-" + negotiationId + "-" + System.currentTimeMillis();
+            cfp.setReplyWith(lastMessageReplyWith);
+            addBehaviour(deadline);
+            send(cfp);
+        }
+
+        /**
+         * Resposta do vendedor: aceitação da última contraproposta ou nova proposta.
+         * Respostas a mensagens anteriores (in-reply-to diferente) são ignoradas.
+         */
+        void onResponse(ACLMessage msg) {
+            if (lastMessageReplyWith != null && !lastMessageReplyWith.equals(msg.getInReplyTo())) {
+                logger.debug("{} [R{}]: Ignoring stale reply (InReplyTo={}, expected {})",
+                        getLocalName(), currentRound, msg.getInReplyTo(), lastMessageReplyWith);
+                return;
+            }
+            lastActivity = System.currentTimeMillis();
+            if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
+                logger.info("{} [R{}]: Seller ACCEPTED my last counter-offer.", getLocalName(), currentRound);
+                if (lastSentCounterBid != null) {
+                    finalAcceptedBid = lastSentCounterBid;
+                    finalUtility = buyerEvaluator.evaluate(finalAcceptedBid);
+                    logger.info("{}: Final accepted bid utility = {}", getLocalName(), String.format("%.4f", finalUtility));
+                } else {
+                    logger.warn("{}: Seller accepted, but lastSentCounterBid is null!", getLocalName());
+                }
+                finished = true;
                 return;
             }
+            logger.info("{} [R{}]: Received PROPOSE from seller.", getLocalName(), currentRound);
+            if (!evaluateProposal(msg)) {
+                finished = true;
+            }
+        }
+
+        /**
+         * Avalia a proposta recebida do Vendedor (todos os lances) e responde com
+         * aceitação ou contraproposta.
+         * @return true se a negociação continua (contraproposta enviada); false se terminou (deadline, falha ou aceitação).
+         */
+        private boolean evaluateProposal(ACLMessage receivedProposalMsg) {
+            currentRound++;
+            logger.info("{} [R{}]: Evaluating proposal from {}", getLocalName(), currentRound, sellerAgent.getLocalName());
+
+            if (currentRound > maxRounds) {
+                logger.warn("{}: Deadline reached ({}/{}) . Ending negotiation.", getLocalName(), currentRound, maxRounds);
+                return false;
+            }
 
+            Proposal p;
             try {
-                Serializable content = receivedProposalMsg.getContentObject();
-                if (content instanceof Proposal) {
-                    Proposal p = (Proposal) content;
-                    if (p.getBids() != null && !p.getBids().isEmpty()) {
-
-                        for (Bid receivedBid : p.getBids()) {
-                            double utility = evalService.calculateUtility("buyer", receivedBid, weights, issueParams, buyerRiskBeta);
-                            logger.debug("{}: Bid {} utility = {} (Threshold = {})", 
-                                myAgent.getLocalName(), 
-                                receivedBid.getProductBundle().getProducts(),
-                                String.format("%.4f", utility), 
-                                String.format("%.4f", acceptanceThreshold));
-
-                            Bid hypotheticalCounter = concessionService.generateCounterBid(receivedBid, currentRound + 1, maxRounds, buyerGamma, discountRate, issueParams, "buyer");
-                            double nextCounterUtility = evalService.calculateUtility("buyer", hypotheticalCounter, weights, issueParams, buyerRiskBeta);
-
-                            if (utility >= acceptanceThreshold && utility >= nextCounterUtility) {
-                                logger.info("{}: Bid {} ACCEPTABLE (Utility {} >= Threshold {} AND >= Next Counter {})",
-                                        myAgent.getLocalName(),
-                                        receivedBid.getProductBundle().getProducts(),
-                                        String.format("%.4f", utility),
-                                        String.format("%.4f", acceptanceThreshold),
-                                        String.format("%.4f", nextCounterUtility));
-                                acceptedBids.add(receivedBid);
-                            } else {
-                                logger.debug("{}: Bid {} REJECTED (Utility {}). Will counter-offer.", 
-                                    myAgent.getLocalName(), 
-                                    receivedBid.getProductBundle().getProducts(),
-                                    String.format("%.4f", utility));
-                                rejectedBids.add(receivedBid);
-                            }
-                        }
-
-                        if (!acceptedBids.isEmpty()) {
-                            logger.info("{}: Accepting {} out of {} bids", 
-                                myAgent.getLocalName(), acceptedBids.size(), p.getBids().size());
-                            finalAcceptedBid = acceptedBids.stream()
-                                .max((b1, b2) -> Double.compare(
-                                    evalService.calculateUtility("buyer", b1, weights, issueParams, buyerRiskBeta),
-                                    evalService.calculateUtility("buyer", b2, weights, issueParams, buyerRiskBeta)
-                                ))
-                                .orElse(acceptedBids.get(0));
-                            finalUtility = evalService.calculateUtility("buyer", finalAcceptedBid, weights, issueParams, buyerRiskBeta);
-                            transitionEvent = 1;
-                        } else {
-                            logger.info("{}: All {} bids rejected. Will make counter-offer.", 
-                                myAgent.getLocalName(), rejectedBids.size());
-                            transitionEvent = 0;
-                        }
-                    } else {
-                        logger.warn("{}: Received empty proposal.", myAgent.getLocalName());
+                p = ProposalMessages.read(receivedProposalMsg);
+            } catch (IOException e) {
+                logger.error("{}: Failed to read proposal content.", getLocalName(), e);
+                return false;
+            }
+            if (p == null) {
+                logger.error("{}: Received message without a proposal (language: {})", getLocalName(), receivedProposalMsg.getLanguage());
+                return false;
+            }
+            if (p.getBids() == null || p.getBids().isEmpty()) {
+                logger.warn("{}: Received empty proposal.", getLocalName());
+                return false;
+            }
+
+            // Avalia a proposta inteira e as contrapropostas hipotéticas em uma passada cada.
+            List<Bid> hypotheticalCounters = new ArrayList<>(p.getBids().size());
+            for (Bid receivedBid : p.getBids()) {
+                hypotheticalCounters.add(concessionService.generateCounterBid(receivedBid, currentRound + 1, concessionSchedule,
+                        EvaluationService.paramsFor(receivedBid.getProductBundle(), issueParams, bundleIssueParams), "buyer"));
+            }
+            double[] utilities = evalService.calculateUtilities(buyerEvaluator, p.getBids());
+            double[] nextCounterUtilities = evalService.calculateUtilities(buyerEvaluator, hypotheticalCounters);
+
+            int acceptedCount = 0;
+            double bestAcceptedUtility = Double.NEGATIVE_INFINITY;
+            Bid bestAcceptedBid = null;
+            for (int b = 0; b < p.getBids().size(); b++) {
+                Bid receivedBid = p.getBids().get(b);
+                double utility = utilities[b];
+                logger.debug("{}: Bid {} utility = {} (Threshold = {})",
+                    getLocalName(),
+                    receivedBid.getProductBundle().getProducts(),
+                    String.format("%.4f", utility),
+                    String.format("%.4f", acceptanceThreshold));
+
+                double nextCounterUtility = nextCounterUtilities[b];
+
+                if (utility >= acceptanceThreshold && utility >= nextCounterUtility) {
+                    logger.info("{}: Bid {} ACCEPTABLE (Utility {} >= Threshold {} AND >= Next Counter {})",
+                            getLocalName(),
+                            receivedBid.getProductBundle().getProducts(),
+                            String.format("%.4f", utility),
+                            String.format("%.4f", acceptanceThreshold),
+                            String.format("%.4f", nextCounterUtility));
+                    acceptedCount++;
+                    if (utility > bestAcceptedUtility) {
+                        bestAcceptedUtility = utility;
+                        bestAcceptedBid = receivedBid;
                     }
                 } else {
-                    logger.error("{}: Received unexpected content type: {}", myAgent.getLocalName(), (content == null ? "null" : content.getClass().getName()));
+                    logger.debug("{}: Bid {} REJECTED (Utility {}). Will counter-offer.",
+                        getLocalName(),
+                        receivedBid.getProductBundle().getProducts(),
+                        String.format("%.4f", utility));
                 }
-            } catch (UnreadableException e) {
-                logger.error("{}: Failed to read proposal content.", myAgent.getLocalName(), e);
             }
-        }
 
-        @Override
-        public int onEnd() {
-            return transitionEvent;
+            if (acceptedCount > 0) {
+                logger.info("{}: Accepting {} out of {} bids",
+                    getLocalName(), acceptedCount, p.getBids().size());
+                finalAcceptedBid = bestAcceptedBid;
+                finalUtility = bestAcceptedUtility;
+                acceptOffer(receivedProposalMsg, p);
+                return false;
+            }
+            logger.info("{}: All {} bids rejected. Will make counter-offer.",
+                getLocalName(), p.getBids().size());
+            return makeCounterOffer(receivedProposalMsg, p);
         }
-    }
-
-    /**
-     * Estado 4: Gera e envia uma contraproposta ao Vendedor.
-     */
-    private class MakeCounterOffer extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{} [R{}]: Generating counter-offer...", myAgent.getLocalName(), currentRound);
 
+        /**
+         * Gera e envia uma contraproposta ao Vendedor, um lance para cada lance recebido.
+         */
+        private boolean makeCounterOffer(ACLMessage receivedProposalMsg, Proposal receivedP) {
+            logger.info("{} [R{}]: Generating counter-offer...", getLocalName(), currentRound);
+
+            List<Bid> counterBids = new ArrayList<>();
+            for (Bid receivedB : receivedP.getBids()) {
+                Bid counterBid = concessionService.generateCounterBid(
+                        receivedB,
+                        currentRound,
+                        concessionSchedule,
+                        EvaluationService.paramsFor(receivedB.getProductBundle(), issueParams, bundleIssueParams),
+                        "buyer"
+                );
+                counterBids.add(counterBid);
+                logger.debug("{}: Generated counter for bundle {} -> Price: {}",
+                    getLocalName(),
+                    counterBid.getProductBundle().getProducts(),
+                    counterBid.getIssues().get(0).getValue());
+            }
+            lastSentCounterBid = counterBids.get(0);
+
+            Proposal counterProposal = new Proposal(counterBids);
+            ACLMessage proposeMsg = new ACLMessage(ACLMessage.PROPOSE);
+            proposeMsg.addReceiver(sellerAgent);
+            proposeMsg.setConversationId(negotiationId);
+            proposeMsg.setInReplyTo(receivedProposalMsg.getReplyWith());
+            lastMessageReplyWith = "prop-" + negotiationId + "-" + System.currentTimeMillis();
+            proposeMsg.setReplyWith(lastMessageReplyWith);
             try {
-                Proposal receivedP = (Proposal) receivedProposalMsg.getContentObject();
-                
-                List<Bid> counterBids = new ArrayList<>();
-                for (Bid receivedB : receivedP.getBids()) {
-                    Bid counterBid = concessionService.generateCounterBid(
-                            receivedB,
-                            currentRound,
-                            maxRounds,
-                            buyerGamma,
-                            discountRate,
-                            issueParams,
-                            "buyer"
-                    );
-                    counterBids.add(counterBid);
-                    logger.debug("{}: Generated counter for bundle {} -> Price: {}", 
-                        myAgent.getLocalName(),
-                        counterBid.getProductBundle().getProducts(),
-                        counterBid.getIssues().get(0).getValue());
-                }
-                lastSentCounterBid = counterBids.get(0);
-                
-                Proposal counterProposal = new Proposal(counterBids);
-                ACLMessage proposeMsg = new ACLMessage(ACLMessage.PROPOSE);
-                proposeMsg.addReceiver(sellerAgent);
-                proposeMsg.setConversationId(negotiationId);
-                proposeMsg.setInReplyTo(receivedProposalMsg.getReplyWith());
-                lastMessageReplyWith = "prop-" + negotiationId + "-" + System.currentTimeMillis();
-                proposeMsg.setReplyWith(lastMessageReplyWith);
-                proposeMsg.setContentObject(counterProposal);
+                ProposalMessages.write(proposeMsg, counterProposal, proposalCodec);
                 Object priceValue = counterBids.get(0).getIssues().get(0).getValue();
-                String readableContent = String.format("COUNTER-PROPOSAL (Round %d) - %d bids, First: Bundle %s, Price: %s", 
+                String readableContent = String.format("COUNTER-PROPOSAL (Round %d) - %d bids, First: Bundle %s, Price: %s",
                     currentRound,
                     counterBids.size(),
-                    counterBids.get(0).getProductBundle().getProducts(), 
+                    counterBids.get(0).getProductBundle().getProducts(),
                     priceValue);
                 proposeMsg.addUserDefinedParameter("readable-content", readableContent);
-                
-                myAgent.send(proposeMsg);
-                logger.info("{}: Sent counter-proposal (Round {}) with {} bids", 
-                    myAgent.getLocalName(), currentRound, counterBids.size());
 
-            } catch (UnreadableException | IOException e) {
-                logger.error("{}: Error creating/sending counter-proposal", myAgent.getLocalName(), e);
+                send(proposeMsg);
+                logger.info("{}: Sent counter-proposal (Round {}) with {} bids",
+                    getLocalName(), currentRound, counterBids.size());
+                return true;
+            } catch (IOException e) {
+                logger.error("{}: Error creating/sending counter-proposal", getLocalName(), e);
+                return false;
             }
         }
-    }
 
-    /**
-     * Estado 5: Envia uma mensagem de aceitação para a proposta do Vendedor.
-     */
-    private class AcceptOffer extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{}: Sending acceptance message to {}", myAgent.getLocalName(), sellerAgent.getLocalName());
+        /**
+         * Envia uma mensagem de aceitação para a proposta do Vendedor.
+         */
+        private void acceptOffer(ACLMessage receivedProposalMsg, Proposal receivedP) {
+            logger.info("{}: Sending acceptance message to {}", getLocalName(), sellerAgent.getLocalName());
             ACLMessage accept = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
             accept.addReceiver(sellerAgent);
             accept.setConversationId(negotiationId);
             accept.setInReplyTo(receivedProposalMsg.getReplyWith());
             try {
-                Proposal receivedP = (Proposal) receivedProposalMsg.getContentObject();
-                if (!receivedP.getBids().isEmpty()) {
-                    Bid acceptedBid = receivedP.getBids().get(0);
-                    Object priceValue = acceptedBid.getIssues().get(0).getValue();
-                    String content = String.format("OFFER ACCEPTED - Bundle: %s, Accepted Price: %s", 
-                        acceptedBid.getProductBundle().getProducts(), 
-                        priceValue);
-                    accept.setContent(content);
-                } else {
-                    accept.setContent("Offer accepted.");
-                }
+                Bid acceptedBid = receivedP.getBids().get(0);
+                Object priceValue = acceptedBid.getIssues().get(0).getValue();
+                String content = String.format("OFFER ACCEPTED - Bundle: %s, Accepted Price: %s",
+                    acceptedBid.getProductBundle().getProducts(),
+                    priceValue);
+                accept.setContent(content);
             } catch (Exception e) {
                 accept.setContent("Offer accepted.");
             }
-            
-            myAgent.send(accept);
-        }
-    }
-
-    /**
-     * Estado Final (FSM): Ações de finalização da negociação.
-     */
-    private static class EndNegotiation extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{}: Negotiation process finished.", myAgent.getLocalName());
-        }
-    }
 
-    /**
-     * Comportamento Final: Informa o Coordenador sobre o resultado da negociação.
-     * Envia o lance final (se houver) ou uma mensagem de falha.
-     */
-    private class InformCoordinatorDone extends OneShotBehaviour {
-        @Override
-        public void action() {
-            ACLMessage doneMsg = new ACLMessage(ACLMessage.INFORM);
-            doneMsg.addReceiver(coordinatorAgent);
-            doneMsg.setProtocol(PROTOCOL_REPORT_RESULT);
-            try {
-                if (finalAcceptedBid != null) {
-                    NegotiationResult result = new NegotiationResult(finalAcceptedBid, finalUtility, sellerAgent.getLocalName());
-                    doneMsg.setContentObject(result);
-                    logger.info("{}: Informing Coordinator of successful negotiation.", myAgent.getLocalName());
-                } else {
-                    doneMsg.setContent("NegotiationFailed");
-                    logger.info("{}: Informing Coordinator of failed negotiation.", myAgent.getLocalName());
-                }
-                myAgent.send(doneMsg);
-            } catch (IOException e) {
-                logger.error("{}: Error sending result to Coordinator", myAgent.getLocalName(), e);
-            }
+            send(accept);
         }
     }
-}
\ No newline at end of file
+}
@@ -4,13 +4,28 @@ import jade.core.AID;
 import jade.core.Agent;
 import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.OneShotBehaviour;
-import jade.core.behaviours.TickerBehaviour;
+import jade.core.behaviours.WakerBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.SearchConstraints;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import jade.lang.acl.UnreadableException;
+import jade.proto.SubscriptionInitiator;
 import jade.wrapper.AgentController;
 import jade.wrapper.StaleProxyException;
+import mas.logic.ConfigLoader;
+import mas.logic.CycleScheduler;
+import mas.logic.DemandParser;
+import mas.logic.IncrementalWinnerDetermination;
+import mas.logic.ResultFence;
+import mas.logic.SellerCoverageIndex;
+import mas.logic.WinnerDeterminationResult;
 import mas.logic.WinnerDeterminationService;
+import mas.logic.WinnerDeterminationService.SolverMode;
 import mas.models.NegotiationResult;
 import mas.models.ProductBundle;
 import org.slf4j.Logger;
@@ -18,6 +33,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * CoordinatorAgent ajustado: espera define-task-protocol para iniciar pipeline.
@@ -29,22 +46,82 @@ public class CoordinatorAgent extends Agent {
     private static final String PROTOCOL_REPORT_RESULT = "report-negotiation-result";
     private static final String PROTOCOL_DEFINE_TASK = "define-task-protocol";
 
-    private List<AID> sellerAgents;
-    private int finishedCounter = 0;
-    private WinnerDeterminationService wds;
-    private List<NegotiationResult> negotiationResults;
+    /**
+     * Parâmetro (user-defined) com o id do ciclo de demanda. Acompanha o pedido ao SDA,
+     * a atribuição aos compradores e os resultados, permitindo descartar resultados
+     * de ciclos antigos sem desserializar o conteúdo.
+     */
+    static final String CYCLE_ID = "cycle-id";
+
+    private SellerRegistry sellerRegistry;
+    private boolean quantityAwareDemand;
+    private ForkJoinPool solverPool;
+    private long wdpTimeBudgetMillis;
     private int[] productDemand;
     private List<ProductBundle> preferredBundles;
+    /** Pedidos ao SDA aguardando resposta, por reply-with. */
+    private final Map<String, BundleRequest> pendingBundleRequests = new HashMap<>();
+    private long bundleTimeoutMillis;
+    private long cycleTimeoutMillis;
+    private BuyerPool buyerPool;
+    private int sellersPerBuyer;
+    /** Falso no modo headless: compradores novos não são registrados no Sniffer. */
+    private boolean sniffBuyers = true;
+    /** Ciclos em andamento (até 'coordinator.maxCyclesInFlight') e fila ('coordinator.cycleQueueCapacity'). */
+    private CycleScheduler<DemandCycle> cycles;
+    private long cycleCounter = 0;
 
     @Override
     protected void setup() {
         logger.info("Coordinator Agent {} is ready.", getAID().getName());
 
-        this.wds = new WinnerDeterminationService();
-        this.negotiationResults = new ArrayList<>();
+        // Argumento opcional (App): registrar compradores no Sniffer.
+        Object[] args = getArguments();
+        if (args != null && args.length > 0 && args[0] instanceof Boolean) sniffBuyers = (Boolean) args[0];
+
+        this.solverPool = new ForkJoinPool();
+        this.wdpTimeBudgetMillis = ConfigLoader.getInstance().getInt("wdp.timeBudgetMillis", 0);
         this.preferredBundles = new ArrayList<>();
+        this.bundleTimeoutMillis = ConfigLoader.getInstance().getInt("coordinator.bundleTimeoutMillis", 8000);
+        // Padrão: uma rodada a mais que o pior caso de uma negociação (cada rodada espera até o prazo de resposta).
+        long roundTimeout = ConfigLoader.getInstance().getInt("negotiation.responseTimeoutMillis", 15000);
+        long rounds = ConfigLoader.getInstance().getInt("negotiation.maxRounds", 10);
+        this.cycleTimeoutMillis = ConfigLoader.getInstance().getInt("coordinator.cycleTimeoutMillis",
+                (int) Math.min(Integer.MAX_VALUE, roundTimeout * (rounds + 1)));
+        this.buyerPool = new BuyerPool();
+        this.sellersPerBuyer = ConfigLoader.getInstance().getInt("coordinator.sellersPerBuyer", 0);
+        this.cycles = new CycleScheduler<>(
+                ConfigLoader.getInstance().getInt("coordinator.maxCyclesInFlight", 1),
+                ConfigLoader.getInstance().getInt("coordinator.cycleQueueCapacity", 0),
+                cycle -> cycle.id);
 
+        int prewarm = ConfigLoader.getInstance().getInt("coordinator.buyerPoolSize", 0);
+        if (prewarm > 0) {
+            addBehaviour(new OneShotBehaviour() {
+                @Override
+                public void action() {
+                    buyerPool.prewarm(prewarm);
+                }
+            });
+        }
+        this.sellerRegistry = new SellerRegistry();
+        addBehaviour(sellerRegistry);
         addBehaviour(new WaitForTask());
+        addBehaviour(new BundleReplies());
+        addBehaviour(new CollectResults());
+
+        // Os resultados do WDP voltam da thread do solver pela fila O2A (ver solveInBackground).
+        setEnabledO2ACommunication(true, 0);
+        SolverResults solverResults = new SolverResults();
+        addBehaviour(solverResults);
+        setO2AManager(solverResults);
+    }
+
+    @Override
+    protected void takeDown() {
+        if (sellerRegistry != null) sellerRegistry.cancel(getDefaultDF(), true);
+        if (solverPool != null) solverPool.shutdownNow();
+        super.takeDown();
     }
 
     private class WaitForTask extends CyclicBehaviour {
@@ -63,6 +140,7 @@ public class CoordinatorAgent extends Agent {
 
             String content = msg.getContent();
             logger.info("🎯 CA RECEIVED define-task message: {}", content);
+            quantityAwareDemand = false;
             if (content == null || content.trim().isEmpty() || "START".equalsIgnoreCase(content.trim())) {
                 loadConfigProperties();
                 productDemand = new int[]{1, 1, 1, 1};
@@ -71,12 +149,34 @@ public class CoordinatorAgent extends Agent {
                 parseProductDemand(content);
             }
 
-            negotiationResults.clear();
-            finishedCounter = 0;
-            myAgent.addBehaviour(new RequestProductBundles());
+            // O id é atribuído na chegada da demanda.
+            DemandCycle cycle = new DemandCycle(++cycleCounter, productDemand.clone(), quantityAwareDemand);
+            logger.info("CA: Demand cycle {} created.", cycle.id);
+            admitCycle(cycle);
         }
     }
 
+    /**
+     * Inicia o ciclo se houver vaga entre os ciclos em andamento; senão ele espera na fila.
+     * Com a fila cheia, o ciclo mais antigo da fila é descartado (a demanda mais recente prevalece).
+     */
+    private void admitCycle(DemandCycle cycle) {
+        DemandCycle dropped = cycles.admit(cycle);
+        if (cycles.isInFlight(cycle.id)) {
+            launchCycle(cycle);
+        } else if (dropped != null) {
+            logger.warn("CA: {} cycle(s) in flight and queue full. Dropping demand cycle {}.",
+                    cycles.inFlightCount(), dropped.id);
+        } else {
+            logger.info("CA: {} cycle(s) in flight. Demand cycle {} queued ({} waiting).",
+                    cycles.inFlightCount(), cycle.id, cycles.queuedCount());
+        }
+    }
+
+    private void launchCycle(DemandCycle cycle) {
+        addBehaviour(new RequestProductBundles(cycle));
+    }
+
     private void loadConfigProperties() {
         File f = new File("config.properties");
         if (!f.exists()) {
@@ -97,138 +197,582 @@ public class CoordinatorAgent extends Agent {
 
     private void parseProductDemand(String productList) {
         logger.info("CA: Parsing dynamic demand: {}", productList);
-        String[] products = productList.split(",");
-        productDemand = new int[4];
-        for (String product : products) {
-            switch (product.trim()) {
-                case "P1":
-                    productDemand[0]++;
-                    break;
-                case "P2":
-                    productDemand[1]++;
-                    break;
-                case "P3":
-                    productDemand[2]++;
-                    break;
-                case "P4":
-                    productDemand[3]++;
-                    break;
-                default:
-                    logger.warn("CA: Unknown product '{}'", product);
-            }
-        }
+        DemandParser.Demand demand = DemandParser.parse(productList);
+        productDemand = demand.getVector();
+        quantityAwareDemand = demand.isQuantityAware();
         logger.info("CA: Parsed demand vector: {}", Arrays.toString(productDemand));
     }
 
+    /**
+     * Pede ao SDA os pacotes preferidos do ciclo sem bloquear o agente: a resposta é tratada
+     * por {@link BundleReplies}, casada pelo reply-with. Com um conjunto de pacotes já conhecido,
+     * o ciclo segue na hora com ele e a resposta só o atualiza; sem nenhum (primeiro ciclo),
+     * a negociação espera a resposta até 'coordinator.bundleTimeoutMillis'.
+     */
     private class RequestProductBundles extends OneShotBehaviour {
+        private final DemandCycle cycle;
+
+        RequestProductBundles(DemandCycle cycle) {
+            this.cycle = cycle;
+        }
+
         @Override
         public void action() {
-            logger.info("CA: Requesting preferred product bundles from SDA...");
+            logger.info("CA: Requesting preferred product bundles from SDA (cycle {})...", cycle.id);
             ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
             msg.addReceiver(new AID("sda", AID.ISLOCALNAME));
-            msg.setContent("generate-bundles");
+            // A demanda do ciclo (quantidade por produto): o SDA só monta pacotes com produtos demandados.
+            StringBuilder demand = new StringBuilder();
+            for (int p = 0; p < cycle.demand.length; p++) {
+                if (p > 0) demand.append(',');
+                demand.append(cycle.demand[p]);
+            }
+            msg.setContent(demand.toString());
             msg.setProtocol(PROTOCOL_GET_BUNDLES);
-            msg.setReplyWith("req-bundles-" + System.currentTimeMillis());
+            msg.setConversationId(cycle.conversationId());
+            msg.addUserDefinedParameter(CYCLE_ID, Long.toString(cycle.id));
+            String replyWith = "req-bundles-" + cycle.id + "-" + System.currentTimeMillis();
+            msg.setReplyWith(replyWith);
+
+            BundleRequest request = new BundleRequest(cycle);
+            request.timeout = new WakerBehaviour(myAgent, bundleTimeoutMillis) {
+                @Override
+                protected void onWake() {
+                    if (pendingBundleRequests.remove(replyWith) == null) return;
+                    if (!request.started) {
+                        logger.warn("CA: No reply from SDA (timeout). Proceeding with {} last known bundle(s).",
+                                preferredBundles.size());
+                    }
+                    request.start();
+                }
+            };
+            pendingBundleRequests.put(replyWith, request);
+            myAgent.addBehaviour(request.timeout);
             myAgent.send(msg);
 
-            MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchPerformative(ACLMessage.INFORM),
-                    MessageTemplate.MatchProtocol(PROTOCOL_GET_BUNDLES)
-            );
-            ACLMessage reply = myAgent.blockingReceive(mt, 8000);
+            if (!preferredBundles.isEmpty()) {
+                logger.info("CA: Using {} last known bundle(s) for cycle {} while the SDA answers.",
+                        preferredBundles.size(), cycle.id);
+                request.start();
+            }
+        }
+    }
+
+    /**
+     * Pedido ao SDA ainda sem resposta. A negociação do ciclo começa uma única vez:
+     * na resposta, no prazo ou de imediato com os pacotes já conhecidos.
+     */
+    private class BundleRequest {
+        private final DemandCycle cycle;
+        private WakerBehaviour timeout;
+        private boolean started;
+
+        BundleRequest(DemandCycle cycle) {
+            this.cycle = cycle;
+        }
+
+        void start() {
+            if (started) return;
+            started = true;
+            addBehaviour(new StartNegotiations(cycle));
+        }
+    }
+
+    /**
+     * Respostas do SDA, casadas pelo in-reply-to com os pedidos pendentes.
+     * Respostas que chegam depois do prazo são descartadas.
+     */
+    private class BundleReplies extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                MessageTemplate.MatchProtocol(PROTOCOL_GET_BUNDLES)
+        );
+
+        @Override
+        public void action() {
+            ACLMessage reply = myAgent.receive(mt);
             if (reply == null) {
-                logger.warn("CA: No reply from SDA (timeout). Proceeding without preferred bundles.");
-            } else {
-                try {
-                    Object content = reply.getContentObject();
-                    if (content instanceof List<?>) {
-                        List<?> list = (List<?>) content;
-                        preferredBundles.clear();
-                        for (Object o : list) {
-                            if (o instanceof ProductBundle) preferredBundles.add((ProductBundle) o);
-                        }
-                        logger.info("CA: Received {} preferred bundles from SDA.", preferredBundles.size());
-                    } else {
-                        logger.warn("CA: Unexpected reply content from SDA.");
+                block();
+                return;
+            }
+            BundleRequest request = reply.getInReplyTo() == null ? null : pendingBundleRequests.remove(reply.getInReplyTo());
+            if (request == null) {
+                logger.debug("CA: Discarding late SDA reply ({}).", reply.getInReplyTo());
+                return;
+            }
+            myAgent.removeBehaviour(request.timeout);
+            try {
+                Object content = reply.getContentObject();
+                if (content instanceof List<?>) {
+                    List<?> list = (List<?>) content;
+                    preferredBundles.clear();
+                    for (Object o : list) {
+                        if (o instanceof ProductBundle) preferredBundles.add((ProductBundle) o);
                     }
-                } catch (UnreadableException e) {
-                    logger.error("CA: Failed to read bundles from SDA.", e);
+                    logger.info("CA: Received {} preferred bundles from SDA.", preferredBundles.size());
+                } else {
+                    logger.warn("CA: Unexpected reply content from SDA.");
                 }
+            } catch (UnreadableException e) {
+                logger.error("CA: Failed to read bundles from SDA.", e);
             }
-            myAgent.addBehaviour(new StartNegotiations());
+            request.start();
         }
     }
 
     private class StartNegotiations extends OneShotBehaviour {
+        private final DemandCycle cycle;
+
+        StartNegotiations(DemandCycle cycle) {
+            this.cycle = cycle;
+        }
+
         @Override
         public void action() {
-            logger.info("CA: Starting negotiations...");
-
-            finishedCounter = 0;
-            negotiationResults.clear();
+            if (!cycles.isInFlight(cycle.id)) {
+                logger.info("CA: Cycle {} no longer in flight. Skipping.", cycle.id);
+                return;
+            }
+            logger.info("CA: Starting negotiations (cycle {})...", cycle.id);
 
-            sellerAgents = Arrays.asList(
-                    new AID("s1", AID.ISLOCALNAME),
-                    new AID("s2", AID.ISLOCALNAME),
-                    new AID("s3", AID.ISLOCALNAME)
-            );
+            // Só negocia com quem oferta algum produto demandado.
+            List<AID> sellerAgents = sellerRegistry.getSellersFor(cycle.demand);
+            cycle.expected = sellerAgents.size();
+            logger.info("CA: Demand cycle {} started with {} negotiation(s) ({} seller(s) registered).",
+                    cycle.id, cycle.expected, sellerRegistry.size());
 
-            for (AID seller : sellerAgents) createBuyerFor(seller);
-            myAgent.addBehaviour(new WaitForResults());
+            // Cada comprador negocia com até 'coordinator.sellersPerBuyer' vendedores em paralelo (<= 0: todos).
+            int batchSize = sellersPerBuyer > 0 ? sellersPerBuyer : sellerAgents.size();
+            for (int from = 0; from < sellerAgents.size(); from += batchSize) {
+                assignBuyerTo(cycle, sellerAgents.subList(from, Math.min(from + batchSize, sellerAgents.size())));
+            }
+            if (cycle.isComplete()) {
+                concludeCycle(cycle);
+            } else {
+                cycle.deadline = new CycleDeadline(cycle);
+                myAgent.addBehaviour(cycle.deadline);
+            }
         }
     }
 
-    private void createBuyerFor(AID sellerAgent) {
-        String buyerName = "buyer_for_" + sellerAgent.getLocalName() + "_" + System.currentTimeMillis();
-        logger.info("CA: Creating buyer {} for seller {}", buyerName, sellerAgent.getLocalName());
-        try {
-            Object[] args = new Object[]{sellerAgent, getAID()};
-            AgentController ac = getContainerController().createNewAgent(buyerName, "mas.agents.BuyerAgent", args);
-            ac.start();
-            addBuyerToSniffer(buyerName);
-            
-        } catch (StaleProxyException e) {
-            logger.error("CA: Failed to start buyer {}", buyerName, e);
+    /**
+     * Prazo do ciclo ('coordinator.cycleTimeoutMillis'): um comprador que caiu, ou um resultado
+     * perdido, não pode prender a vaga do ciclo para sempre. Vencido o prazo, o ciclo é concluído
+     * com os resultados parciais e os compradores emprestados a ele voltam ao pool.
+     */
+    private class CycleDeadline extends WakerBehaviour {
+        private final DemandCycle cycle;
+
+        CycleDeadline(DemandCycle cycle) {
+            super(CoordinatorAgent.this, cycleTimeoutMillis);
+            this.cycle = cycle;
+        }
+
+        @Override
+        protected void onWake() {
+            if (!cycles.isInFlight(cycle.id)) return;
+            int released = buyerPool.releaseCycle(cycle.id);
+            logger.warn("CA: Cycle {} timed out with {}/{} negotiation(s) finished. "
+                            + "Concluding with {} partial result(s); {} buyer(s) returned to the pool.",
+                    cycle.id, cycle.finished, cycle.expected, cycle.results.size(), released);
+            concludeCycle(cycle);
         }
     }
 
-    private class WaitForResults extends TickerBehaviour {
-        public WaitForResults() { super(CoordinatorAgent.this, 1000); }
+    /**
+     * Registro dos vendedores mantido por assinatura do DF (serviço {@link SellerAgent#SERVICE_TYPE}).
+     * Cada notificação acrescenta ou remove vendedores do {@link SellerCoverageIndex}; os ciclos
+     * de demanda apenas leem a lista de candidatos em cache por máscara de demanda.
+     */
+    private class SellerRegistry extends SubscriptionInitiator {
+        private final SellerCoverageIndex<AID> sellers = new SellerCoverageIndex<>();
+
+        SellerRegistry() {
+            super(CoordinatorAgent.this, DFService.createSubscriptionMessage(
+                    CoordinatorAgent.this, getDefaultDF(), sellerTemplate(), unlimitedSearch()));
+        }
+
+        int size() {
+            return sellers.size();
+        }
+
+        /**
+         * Vendedores que podem contribuir para a demanda, na ordem de registro.
+         */
+        List<AID> getSellersFor(int[] demand) {
+            return sellers.candidatesFor(demand);
+        }
 
         @Override
-        protected void onTick() {
-            MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchPerformative(ACLMessage.INFORM),
-                    MessageTemplate.MatchProtocol(PROTOCOL_REPORT_RESULT)
-            );
-            ACLMessage msg = myAgent.receive(mt);
-            if (msg != null) {
-                try {
-                    Object obj = msg.getContentObject();
-                    if (obj instanceof NegotiationResult) {
-                        negotiationResults.add((NegotiationResult) obj);
-                        logger.info("CA: Received negotiation result from {}", msg.getSender().getLocalName());
+        protected void handleInform(ACLMessage inform) {
+            try {
+                for (DFAgentDescription dfd : DFService.decodeNotification(inform.getContent())) {
+                    // Sem serviços na notificação: o vendedor saiu do DF.
+                    Iterator<?> services = dfd.getAllServices();
+                    if (services.hasNext()) {
+                        sellers.put(dfd.getName(), advertisedProducts((ServiceDescription) services.next()));
                     } else {
-                        logger.info("CA: Received non-object inform from {}", msg.getSender().getLocalName());
+                        sellers.remove(dfd.getName());
                     }
-                } catch (UnreadableException e) {
-                    logger.warn("CA: Could not read message from {}", msg.getSender().getLocalName());
                 }
-                finishedCounter++;
+                logger.info("CA: Seller registry updated ({} seller(s)).", sellers.size());
+            } catch (FIPAException e) {
+                logger.warn("CA: Could not decode DF notification.", e);
+            }
+        }
+    }
+
+    /**
+     * Produtos anunciados na propriedade {@link SellerAgent#PRODUCTS_PROPERTY} (ex: "1,0,1,0"),
+     * ou null se o vendedor não anunciou (ou o anúncio é inválido).
+     */
+    private static int[] advertisedProducts(ServiceDescription sd) {
+        Iterator<?> properties = sd.getAllProperties();
+        while (properties.hasNext()) {
+            Property property = (Property) properties.next();
+            if (!SellerAgent.PRODUCTS_PROPERTY.equals(property.getName()) || property.getValue() == null) continue;
+            String[] parts = property.getValue().toString().split(",");
+            int[] products = new int[parts.length];
+            try {
+                for (int i = 0; i < parts.length; i++) products[i] = Integer.parseInt(parts[i].trim());
+                return products;
+            } catch (NumberFormatException e) {
+                logger.warn("CA: Invalid product advertisement '{}'", property.getValue());
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /** Sem o limite padrão de resultados do DF (100 vendedores). */
+    private static SearchConstraints unlimitedSearch() {
+        SearchConstraints constraints = new SearchConstraints();
+        constraints.setMaxResults(-1L);
+        return constraints;
+    }
+
+    private static DFAgentDescription sellerTemplate() {
+        DFAgentDescription template = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(SellerAgent.SERVICE_TYPE);
+        template.addServices(sd);
+        return template;
+    }
+
+    /**
+     * Estado de um ciclo de demanda: resultados recebidos e a barreira de conclusão
+     * (número de negociações concluídas contra o esperado).
+     */
+    private static class DemandCycle {
+        final long id;
+        final int[] demand;
+        final boolean quantityAware;
+        final List<NegotiationResult> results = new ArrayList<>();
+        final IncrementalWinnerDetermination incrementalWds;
+        /** Negociações esperadas; definido quando as negociações começam. */
+        int expected = Integer.MAX_VALUE;
+        int finished;
+        /** Prazo do ciclo; criado quando as negociações começam. */
+        WakerBehaviour deadline;
+
+        DemandCycle(long id, int[] demand, boolean quantityAware) {
+            this.id = id;
+            this.demand = demand;
+            this.quantityAware = quantityAware;
+            this.incrementalWds = !quantityAware && IncrementalWinnerDetermination.supports(demand)
+                    ? new IncrementalWinnerDetermination(demand) : null;
+        }
+
+        boolean isComplete() {
+            return finished >= expected;
+        }
+
+        String conversationId() {
+            return "cycle-" + id;
+        }
+    }
+
+    /**
+     * Empréstimo de um comprador: o ciclo a que pertence e quantas negociações ele reporta.
+     */
+    private static class Lease {
+        final long cycleId;
+        final int negotiations;
+
+        Lease(long cycleId, int negotiations) {
+            this.cycleId = cycleId;
+            this.negotiations = negotiations;
+        }
+    }
+
+    /**
+     * Empresta um comprador do pool e atribui a ele as negociações com os vendedores.
+     */
+    private void assignBuyerTo(DemandCycle cycle, List<AID> sellers) {
+        AID buyer = buyerPool.lease(new Lease(cycle.id, sellers.size()));
+        if (buyer == null) {
+            // Sem comprador não haverá resultado: conta as negociações como concluídas.
+            logger.error("CA: No buyer available for {} seller(s)", sellers.size());
+            cycle.finished += sellers.size();
+            return;
+        }
+        StringBuilder content = new StringBuilder();
+        for (AID seller : sellers) {
+            if (content.length() > 0) content.append(BuyerAgent.SELLER_SEPARATOR);
+            content.append(seller.getName());
+        }
+        logger.info("CA: Assigning buyer {} to {} seller(s)", buyer.getLocalName(), sellers.size());
+        ACLMessage assign = new ACLMessage(ACLMessage.REQUEST);
+        assign.addReceiver(buyer);
+        assign.setProtocol(BuyerAgent.PROTOCOL_ASSIGN_NEGOTIATION);
+        assign.setConversationId(cycle.conversationId());
+        assign.addUserDefinedParameter(CYCLE_ID, Long.toString(cycle.id));
+        assign.setContent(content.toString());
+        send(assign);
+    }
+
+    /**
+     * Pool de BuyerAgents reutilizáveis. Cada comprador é criado (e registrado no Sniffer)
+     * uma única vez; entre ciclos de demanda ele apenas reinicia o estado da sessão.
+     * Um comprador emprestado volta ao pool quando o resultado dele chega ao CA.
+     */
+    private class BuyerPool {
+        private final Deque<AID> idle = new ArrayDeque<>();
+        private final Map<AID, Lease> leased = new HashMap<>();
+        private int created = 0;
+
+        void prewarm(int size) {
+            while (idle.size() + leased.size() < size) {
+                AID buyer = create();
+                if (buyer == null) return;
+                idle.add(buyer);
+            }
+            logger.info("CA: Buyer pool prewarmed with {} agent(s).", idle.size());
+        }
+
+        AID lease(Lease lease) {
+            AID buyer = idle.poll();
+            if (buyer == null) buyer = create();
+            if (buyer != null) leased.put(buyer, lease);
+            return buyer;
+        }
+
+        /**
+         * Devolve ao pool todos os compradores emprestados ao ciclo.
+         * @return Quantos foram devolvidos.
+         */
+        int releaseCycle(long cycleId) {
+            int released = 0;
+            for (Iterator<Map.Entry<AID, Lease>> it = leased.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<AID, Lease> e = it.next();
+                if (e.getValue().cycleId != cycleId) continue;
+                it.remove();
+                idle.add(e.getKey());
+                released++;
+            }
+            return released;
+        }
+
+        Lease leaseOf(AID buyer) {
+            return leased.get(buyer);
+        }
+
+        /**
+         * Devolve o comprador ao pool, se o empréstimo atual dele for do ciclo.
+         * @return O empréstimo encerrado, ou null (comprador fora do pool ou emprestado a outro ciclo).
+         */
+        Lease release(AID buyer, long cycleId) {
+            Lease lease = leased.get(buyer);
+            if (lease == null || lease.cycleId != cycleId) return null;
+            leased.remove(buyer);
+            idle.add(buyer);
+            return lease;
+        }
+
+        private AID create() {
+            String buyerName = "buyer_" + (++created);
+            logger.info("CA: Creating pooled buyer {}", buyerName);
+            try {
+                Object[] args = new Object[]{null, getAID()};
+                AgentController ac = getContainerController().createNewAgent(buyerName, "mas.agents.BuyerAgent", args);
+                ac.start();
+                if (sniffBuyers) addBuyerToSniffer(buyerName);
+                return new AID(buyerName, AID.ISLOCALNAME);
+            } catch (StaleProxyException e) {
+                logger.error("CA: Failed to start buyer {}", buyerName, e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Coleta os resultados das negociações: a cada ativação consome TODAS as mensagens
+     * pendentes e, assim que a barreira do ciclo ativo é atingida, determina os vencedores.
+     * Resultados de ciclos anteriores (compradores emprestados a outro ciclo) são descartados.
+     */
+    private class CollectResults extends CyclicBehaviour {
+        private final MessageTemplate template = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                MessageTemplate.MatchProtocol(PROTOCOL_REPORT_RESULT)
+        );
+
+        @Override
+        public void action() {
+            ACLMessage msg;
+            while ((msg = myAgent.receive(template)) != null) {
+                onResult(msg);
+            }
+            for (DemandCycle cycle : cycles.inFlight()) {
+                if (cycle.isComplete()) concludeCycle(cycle);
             }
+            block();
+        }
 
-            if (finishedCounter >= (sellerAgents == null ? 0 : sellerAgents.size())) {
-                logger.info("--- CA: All negotiations concluded. Determining winners... ---");
-                List<NegotiationResult> optimal = wds.solveWDPWithBranchAndBound(negotiationResults, productDemand);
-                if (optimal == null || optimal.isEmpty()) {
-                    logger.info("CA: No combination of bids could satisfy the demand.");
+        private void onResult(ACLMessage msg) {
+            // O id do ciclo vem no cabeçalho: resultados obsoletos são descartados antes de desserializar.
+            // Sem ele, vale o ciclo do empréstimo; sem nenhum dos dois, o resultado é descartado.
+            Lease lease = buyerPool.leaseOf(msg.getSender());
+            long cycleId = ResultFence.cycleOf(msg.getUserDefinedParameter(CYCLE_ID),
+                    lease != null ? lease.cycleId : ResultFence.NO_CYCLE);
+            // Só encerra o empréstimo com o resultado do próprio ciclo: um comprador devolvido
+            // ao pool por prazo pode já estar emprestado a outro ciclo.
+            lease = buyerPool.release(msg.getSender(), cycleId);
+            DemandCycle cycle = cycles.get(cycleId);
+            if (cycle == null) {
+                logger.info("CA: Dropping stale result from {} (cycle {})", msg.getSender().getLocalName(), cycleId);
+                return;
+            }
+            try {
+                Object obj = msg.getContentObject();
+                List<NegotiationResult> accepted = ResultFence.accept(cycle.id, obj);
+                for (NegotiationResult result : accepted) {
+                    cycle.results.add(result);
+                    publishProvisionalAllocation(cycle, result);
+                }
+                int received = obj instanceof List<?> ? ((List<?>) obj).size() : obj instanceof NegotiationResult ? 1 : 0;
+                if (received == 0) {
+                    logger.info("CA: Received non-object inform from {}", msg.getSender().getLocalName());
+                } else if (accepted.size() < received) {
+                    logger.warn("CA: Dropped {} result(s) from {} not belonging to cycle {}",
+                            received - accepted.size(), msg.getSender().getLocalName(), cycle.id);
                 } else {
-                    double tot = optimal.stream().mapToDouble(NegotiationResult::getUtility).sum();
-                    logger.info("CA: Optimal solution (total utility = {})", tot);
-                    for (NegotiationResult r : optimal) logger.info("CA Winner -> {}", r);
+                    logger.info("CA: Received {} negotiation result(s) from {}", received, msg.getSender().getLocalName());
                 }
-                negotiationResults.clear();
-                finishedCounter = 0;
+            } catch (UnreadableException e) {
+                logger.warn("CA: Could not read message from {}", msg.getSender().getLocalName());
+            }
+            cycle.finished += lease != null ? lease.negotiations : 1;
+        }
+    }
+
+    /**
+     * Barreira atingida: encerra o ciclo, determina os vencedores (em paralelo com os
+     * demais ciclos) e libera a vaga para o próximo ciclo da fila.
+     */
+    private void concludeCycle(DemandCycle cycle) {
+        if (!cycles.isInFlight(cycle.id)) return;
+        if (cycle.deadline != null) removeBehaviour(cycle.deadline);
+        List<DemandCycle> started = cycles.finish(cycle.id);
+        logger.info("--- CA: All negotiations of cycle {} concluded. Determining winners... ---", cycle.id);
+        IncrementalWinnerDetermination incrementalWds = cycle.incrementalWds;
+        if (incrementalWds != null && incrementalWds.getResultCount() == cycle.results.size()) {
+            // O ótimo incremental já considera todos os resultados: não precisa resolver de novo.
+            addBehaviour(new AnnounceWinners(cycle.id,
+                    WinnerDeterminationResult.optimal(incrementalWds.getCurrentAllocation()), null));
+        } else {
+            solveInBackground(cycle.id, new ArrayList<>(cycle.results), cycle.demand.clone(), cycle.quantityAware);
+        }
+        for (DemandCycle next : started) launchCycle(next);
+    }
+
+    /**
+     * Atualiza o WDP incremental com o resultado recém-chegado e publica a
+     * alocação provisória (ótima para os resultados recebidos até agora).
+     */
+    private void publishProvisionalAllocation(DemandCycle cycle, NegotiationResult result) {
+        IncrementalWinnerDetermination incrementalWds = cycle.incrementalWds;
+        if (incrementalWds == null) return;
+        incrementalWds.add(result);
+        if (incrementalWds.isFeasible()) {
+            List<NegotiationResult> provisional = incrementalWds.getCurrentAllocation();
+            logger.info("CA: Provisional allocation after {} result(s) (total utility = {}): {}",
+                    incrementalWds.getResultCount(), incrementalWds.getCurrentUtility(), provisional);
+        } else {
+            logger.info("CA: Provisional allocation after {} result(s): demand not yet covered.",
+                    incrementalWds.getResultCount());
+        }
+    }
+
+    /**
+     * Resolve o WDP fora da thread do agente (no pool fork/join) e devolve o
+     * resultado pela fila O2A, para não bloquear os demais comportamentos do CA.
+     * O comportamento que anuncia os vencedores é adicionado por {@link SolverResults},
+     * já na thread do agente.
+     * Com 'wdp.timeBudgetMillis' > 0 usa o modo anytime, limitando o tempo de reação.
+     * Demandas com quantidades explícitas usam o WDP multiunidade.
+     * Cada ciclo usa a sua instância do serviço (que guarda estado e é sincronizada),
+     * para que ciclos concluídos juntos resolvam em paralelo.
+     */
+    private void solveInBackground(long cycleId, List<NegotiationResult> results, int[] demand, boolean quantityAware) {
+        CompletableFuture
+                .supplyAsync(() -> {
+                    WinnerDeterminationService wds = new WinnerDeterminationService(
+                            quantityAware ? SolverMode.MULTI_UNIT : SolverMode.AUTO);
+                    wds.setForkJoinPool(solverPool);
+                    if (quantityAware) {
+                        return WinnerDeterminationResult.optimal(wds.solveWDPWithBranchAndBound(results, demand));
+                    }
+                    return wdpTimeBudgetMillis > 0
+                            ? wds.solveAnytime(results, demand, wdpTimeBudgetMillis)
+                            : WinnerDeterminationResult.optimal(wds.solveWDPWithBranchAndBound(results, demand));
+                }, solverPool)
+                .whenComplete((result, error) -> {
+                    try {
+                        putO2AObject(new AnnounceWinners(cycleId, result, error), AgentController.ASYNC);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+    }
+
+    /**
+     * Consome a fila O2A na thread do agente; reativado (setO2AManager) a cada objeto novo.
+     */
+    private class SolverResults extends CyclicBehaviour {
+        @Override
+        public void action() {
+            Object o;
+            while ((o = myAgent.getO2AObject()) != null) {
+                if (o instanceof AnnounceWinners) myAgent.addBehaviour((AnnounceWinners) o);
+            }
+            block();
+        }
+    }
+
+    private class AnnounceWinners extends OneShotBehaviour {
+        private final long cycleId;
+        private final WinnerDeterminationResult result;
+        private final Throwable error;
+
+        AnnounceWinners(long cycleId, WinnerDeterminationResult result, Throwable error) {
+            this.cycleId = cycleId;
+            this.result = result;
+            this.error = error;
+        }
+
+        @Override
+        public void action() {
+            if (error != null) {
+                logger.error("CA: Winner determination failed (cycle {}).", cycleId, error);
+            } else if (result == null || result.getWinners().isEmpty()) {
+                logger.info("CA: No combination of bids could satisfy the demand (cycle {}).", cycleId);
+            } else if (result.isOptimal()) {
+                logger.info("CA: Optimal solution for cycle {} (total utility = {})", cycleId, result.getTotalUtility());
+                for (NegotiationResult r : result.getWinners()) logger.info("CA Winner -> {}", r);
+            } else {
+                logger.info("CA: Best solution for cycle {} within {} ms (total utility = {}, gap = {})", cycleId, wdpTimeBudgetMillis,
+                        result.getTotalUtility(), String.format("%.2f%%", result.getOptimalityGap() * 100));
+                for (NegotiationResult r : result.getWinners()) logger.info("CA Winner -> {}", r);
             }
         }
     }
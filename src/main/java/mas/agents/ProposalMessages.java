@@ -0,0 +1,43 @@
+package mas.agents;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.UnreadableException;
+import mas.logic.ProposalCodec;
+import mas.models.Proposal;
+
+/**
+ * Leitura e escrita de {@link Proposal} no conteúdo das mensagens ACL.
+ * O escritor grava a linguagem do codec em :language e o conteúdo como bytes;
+ * o leitor escolhe o codec pela linguagem e, sem linguagem conhecida, cai em
+ * getContentObject (mensagens enviadas com setContentObject).
+ */
+public final class ProposalMessages {
+
+    private ProposalMessages() {
+    }
+
+    public static void write(ACLMessage msg, Proposal proposal, ProposalCodec codec) throws IOException {
+        msg.setLanguage(codec.getLanguage());
+        msg.setByteSequenceContent(codec.encode(proposal));
+    }
+
+    /**
+     * @return A proposta da mensagem, ou null se o conteúdo não é uma proposta.
+     */
+    public static Proposal read(ACLMessage msg) throws IOException {
+        ProposalCodec codec = ProposalCodec.forLanguage(msg.getLanguage());
+        if (codec == null) {
+            try {
+                Serializable content = msg.getContentObject();
+                return content instanceof Proposal ? (Proposal) content : null;
+            } catch (UnreadableException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        byte[] data = msg.getByteSequenceContent();
+        return data == null ? null : codec.decode(data);
+    }
+}
@@ -0,0 +1,38 @@
+package mas.agents;
+
+import jade.core.Agent;
+import jade.core.behaviours.WakerBehaviour;
+
+/**
+ * Prazo de resposta de uma sessão de negociação.
+ * <p>
+ * Um único WakerBehaviour por sessão substitui a verificação periódica do timeout:
+ * ao acordar, se houve atividade desde o agendamento, ele se reagenda para o prazo
+ * restante; caso contrário, chama {@link #onExpired()}. As mensagens em si são tratadas
+ * pelo despachante do agente, acordado pela chegada de cada mensagem.
+ */
+abstract class ResponseDeadline extends WakerBehaviour {
+
+    private final long timeoutMillis;
+
+    ResponseDeadline(Agent a, long timeoutMillis) {
+        super(a, timeoutMillis);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /** Instante (ms) da última mensagem recebida da contraparte. */
+    protected abstract long lastActivity();
+
+    /** Chamado uma única vez quando a contraparte não respondeu dentro do prazo. */
+    protected abstract void onExpired();
+
+    @Override
+    protected void onWake() {
+        long remaining = lastActivity() + timeoutMillis - System.currentTimeMillis();
+        if (remaining > 0) {
+            reset(remaining);
+        } else {
+            onExpired();
+        }
+    }
+}
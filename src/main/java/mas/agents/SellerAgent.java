@@ -2,17 +2,23 @@ package mas.agents;
 
 import jade.core.AID;
 import jade.core.Agent;
-import jade.core.behaviours.Behaviour;
-import jade.core.behaviours.FSMBehaviour;
-import jade.core.behaviours.OneShotBehaviour;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
-import jade.lang.acl.UnreadableException;
+import mas.logic.CompiledUtilityEvaluator;
+import mas.logic.ConcessionSchedule;
 import mas.logic.ConcessionService;
 import mas.logic.ConfigLoader;
+import mas.logic.DemandParser;
 import mas.logic.EvaluationService;
 import mas.logic.EvaluationService.IssueParameters;
 import mas.logic.EvaluationService.IssueType;
+import mas.logic.ProposalCodec;
 import mas.models.Bid;
 import mas.models.NegotiationIssue;
 import mas.models.ProductBundle;
@@ -21,17 +27,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
 
 /**
  * Representa um fornecedor (supplier) na negociação bilateral.
  * Este agente responde ao "Call for Proposal" do BuyerAgent e entra
  * na barganha de oferta alternada.
  * <p>
+ * O agente se registra no DF com o serviço {@link #SERVICE_TYPE}; o CoordinatorAgent
+ * descobre os vendedores por assinatura do DF, sem nomes fixos.
+ * <p>
+ * Um único agente atende várias negociações ao mesmo tempo: cada conversation-id
+ * tem sua própria {@link NegotiationSession}, e um único comportamento cíclico
+ * ({@link NegotiationDispatcher}) recebe as mensagens sem bloquear o agente e as
+ * despacha para a sessão correspondente.
+ * <p>
  * TODO (Simplificação de Arquitetura):
  * Assim como o BuyerAgent, esta implementação negocia apenas UM ÚNICO LANCE (Bid).
  * O artigo exige que o SA envie uma Proposta com MÚLTIPLOS LANCES,
@@ -41,77 +55,71 @@ import java.util.Map;
 public class SellerAgent extends Agent {
     private static final Logger logger = LoggerFactory.getLogger(SellerAgent.class);
 
-    private static final String STATE_WAIT_FOR_REQUEST = "WaitForRequest";
-    private static final String STATE_SEND_INITIAL_PROPOSAL = "SendInitialProposal";
-    private static final String STATE_WAIT_FOR_RESPONSE = "WaitForResponse";
-    private static final String STATE_EVALUATE_COUNTER = "EvaluateCounterProposal";
-    private static final String STATE_ACCEPT_COUNTER = "AcceptCounterOffer";
-    private static final String STATE_MAKE_NEW_PROPOSAL = "MakeNewProposal";
-    private static final String STATE_END_NEGOTIATION = "EndNegotiation";
-
-    private AID buyerAgent;
-    private ACLMessage receivedCounterMsg;
-    private int currentRound = 0;
-    private String negotiationId;
-    private ACLMessage initialRequestMsg;
-    
+    /** Tipo do serviço registrado no DF pelos vendedores. */
+    static final String SERVICE_TYPE = "supplier-negotiation";
+    /** Propriedade do serviço no DF com os produtos do pacote ofertado (ex: "1,1,0,0"). */
+    static final String PRODUCTS_PROPERTY = "products";
+
+    /** Negociações em andamento, por conversation-id. */
+    private final Map<String, NegotiationSession> sessions = new HashMap<>();
+
     private EvaluationService evalService;
+    private CompiledUtilityEvaluator sellerEvaluator;
     private ConcessionService concessionService;
+    private ConcessionSchedule concessionSchedule;
+    private ProposalCodec proposalCodec;
     private Map<String, Double> sellerWeights;
     private Map<String, IssueParameters> sellerIssueParams;
+    /** Parâmetros por pacote ('seller.params.&lt;pacote&gt;.&lt;issue&gt;'), por máscara do pacote. */
+    private Map<Long, Map<String, IssueParameters>> sellerBundleParams;
     private double sellerAcceptanceThreshold;
     private double sellerRiskBeta;
     private double sellerGamma;
     private int maxRounds;
     private double discountRate;
+    /** Sem mensagem do comprador por este tempo, a sessão é encerrada. */
+    private long responseTimeoutMillis;
+    /** Quantidade ofertada de cada produto; o pacote ofertado são os produtos com quantidade > 0. */
+    private int[] offeredQuantities;
 
     protected void setup() {
         logger.info("Seller Agent {} is ready.", getAID().getName());
         setupSellerPreferences();
-        startNegotiationFSM();
+        registerService();
+        addBehaviour(new NegotiationDispatcher());
     }
 
-    /**
-     * Cria e adiciona uma nova FSM para negociação.
-     * Este método é chamado no setup e também após cada negociação terminar,
-     * permitindo que o SellerAgent atenda múltiplas negociações.
-     */
-    private void startNegotiationFSM() {
-        buyerAgent = null;
-        receivedCounterMsg = null;
-        currentRound = 0;
-        negotiationId = null;
-        initialRequestMsg = null;
-        
-        FSMBehaviour fsm = new FSMBehaviour(this) {
-            @Override
-            public int onEnd() {
-                logger.info("{}: FSM finished.", myAgent.getLocalName());
-                startNegotiationFSM();
-                return super.onEnd();
-            }
-        };
-
-        fsm.registerFirstState(new WaitForRequest(), STATE_WAIT_FOR_REQUEST);
-        fsm.registerState(new SendInitialProposal(), STATE_SEND_INITIAL_PROPOSAL);
-        fsm.registerState(new WaitForResponse(this), STATE_WAIT_FOR_RESPONSE);
-        fsm.registerState(new EvaluateCounterProposal(), STATE_EVALUATE_COUNTER);
-        fsm.registerState(new AcceptCounterOffer(), STATE_ACCEPT_COUNTER);
-        fsm.registerState(new MakeNewProposal(), STATE_MAKE_NEW_PROPOSAL);
-        fsm.registerLastState(new EndNegotiation(), STATE_END_NEGOTIATION);
-
-        fsm.registerDefaultTransition(STATE_WAIT_FOR_REQUEST, STATE_SEND_INITIAL_PROPOSAL);
-        fsm.registerDefaultTransition(STATE_SEND_INITIAL_PROPOSAL, STATE_WAIT_FOR_RESPONSE);
-        fsm.registerTransition(STATE_WAIT_FOR_RESPONSE, STATE_EVALUATE_COUNTER, 1); // Counter recebido
-        fsm.registerTransition(STATE_WAIT_FOR_RESPONSE, STATE_END_NEGOTIATION, 0);  // Aceitação recebida ou Timeout
-        fsm.registerTransition(STATE_EVALUATE_COUNTER, STATE_ACCEPT_COUNTER, 1);
-        fsm.registerTransition(STATE_EVALUATE_COUNTER, STATE_MAKE_NEW_PROPOSAL, 0);
-        fsm.registerTransition(STATE_EVALUATE_COUNTER, STATE_END_NEGOTIATION, 2);
-        fsm.registerDefaultTransition(STATE_ACCEPT_COUNTER, STATE_END_NEGOTIATION);
-        fsm.registerDefaultTransition(STATE_MAKE_NEW_PROPOSAL, STATE_WAIT_FOR_RESPONSE);
-
-        addBehaviour(fsm);
+    @Override
+    protected void takeDown() {
+        try {
+            DFService.deregister(this);
+        } catch (FIPAException e) {
+            logger.warn("{}: Failed to deregister from DF", getLocalName(), e);
+        }
+        super.takeDown();
     }
+
+    private void registerService() {
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(SERVICE_TYPE);
+        sd.setName(getLocalName() + "-negotiation");
+        // Anuncia o pacote ofertado: o CoordinatorAgent só negocia com quem cobre a demanda.
+        StringBuilder products = new StringBuilder();
+        for (int p : offeredProducts()) {
+            if (products.length() > 0) products.append(',');
+            products.append(p);
+        }
+        sd.addProperties(new Property(PRODUCTS_PROPERTY, products.toString()));
+        dfd.addServices(sd);
+        try {
+            DFService.register(this, dfd);
+        } catch (FIPAException e) {
+            logger.error("{}: Failed to register negotiation service with DF", getLocalName(), e);
+        }
+    }
+
     private void setupSellerPreferences() {
         ConfigLoader config = ConfigLoader.getInstance();
         this.evalService = new EvaluationService();
@@ -122,6 +130,9 @@ public class SellerAgent extends Agent {
         this.sellerGamma = config.getDouble("seller.gamma");
         this.maxRounds = config.getInt("negotiation.maxRounds");
         this.discountRate = config.getDouble("negotiation.discountRate");
+        this.responseTimeoutMillis = config.getInt("negotiation.responseTimeoutMillis", 15000);
+        this.concessionSchedule = ConcessionSchedule.of(maxRounds, sellerGamma, discountRate);
+        this.proposalCodec = ProposalCodec.byName(config.getString("message.codec"));
 
         sellerWeights = new HashMap<>();
         sellerWeights.put("price", config.getDouble("seller.weights.price"));
@@ -135,7 +146,59 @@ public class SellerAgent extends Agent {
         loadIssueParams(config, "delivery", IssueType.COST, "seller.params.");
         sellerIssueParams.put("quality", new IssueParameters(0, 1, IssueType.QUALITATIVE));
         sellerIssueParams.put("service", new IssueParameters(0, 1, IssueType.QUALITATIVE));
+        this.sellerBundleParams = evalService.loadBundleParams("seller.params.", sellerIssueParams);
+        this.sellerEvaluator = evalService.compile("seller", sellerWeights, sellerIssueParams,
+                sellerBundleParams, sellerRiskBeta);
+        this.offeredQuantities = loadOfferedQuantities(config);
+
+    }
 
+    /**
+     * Quantidades ofertadas: 'seller.&lt;nome&gt;.quantities' (ex: "1000,1000,0,0"), uma por produto
+     * e sem valores negativos, ou, sem a chave (ou com valor inválido), os pacotes originais
+     * por nome (s1 = P1+P2, s2 = P3+P4, demais = P1+P3).
+     */
+    private int[] loadOfferedQuantities(ConfigLoader config) {
+        String value = config.getString("seller." + getLocalName() + ".quantities");
+        if (value != null && !value.trim().isEmpty()) {
+            String[] parts = value.split(",");
+            int[] quantities = new int[parts.length];
+            try {
+                if (parts.length != DemandParser.PRODUCT_COUNT) {
+                    throw new NumberFormatException("expected " + DemandParser.PRODUCT_COUNT + " quantities");
+                }
+                for (int i = 0; i < parts.length; i++) {
+                    quantities[i] = Integer.parseInt(parts[i].trim());
+                    if (quantities[i] < 0) throw new NumberFormatException("negative quantity " + quantities[i]);
+                }
+                return quantities;
+            } catch (NumberFormatException e) {
+                logger.error("{}: Invalid offered quantities: {}", getLocalName(), value, e);
+            }
+        }
+        switch (getLocalName()) {
+            case "s1":
+                return new int[]{1000, 1000, 0, 0}; // P1+P2
+            case "s2":
+                return new int[]{0, 0, 2000, 2000}; // P3+P4
+            default:
+                return new int[]{1000, 0, 2000, 0}; // P1+P3
+        }
+    }
+
+    private int[] offeredProducts() {
+        int[] products = new int[offeredQuantities.length];
+        for (int i = 0; i < products.length; i++) products[i] = offeredQuantities[i] > 0 ? 1 : 0;
+        return products;
+    }
+
+    /** Nome legível do pacote (ex: "P1+P2"). */
+    private static String bundleName(int[] products) {
+        StringJoiner name = new StringJoiner("+");
+        for (int p = 0; p < products.length; p++) {
+            if (products[p] > 0) name.add("P" + (p + 1));
+        }
+        return name.toString();
     }
 
     private void loadIssueParams(ConfigLoader config, String issueName, IssueType type, String prefix) {
@@ -159,41 +222,120 @@ public class SellerAgent extends Agent {
 
 
     /**
-     * Estado 1: Aguarda o "Call for Proposal" (CFP) do BuyerAgent.
+     * Laço único de recepção: despacha cada mensagem para a sessão da sua conversa.
+     * Um REQUEST abre uma sessão; PROPOSE/ACCEPT_PROPOSAL seguem para a sessão existente.
+     * Nunca bloqueia o agente: sem mensagens, o comportamento fica bloqueado até a próxima chegar.
      */
-    private class WaitForRequest extends OneShotBehaviour {
+    private class NegotiationDispatcher extends CyclicBehaviour {
+        private final MessageTemplate template = MessageTemplate.or(
+                MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+                MessageTemplate.or(
+                        MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
+                        MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL)
+                )
+        );
+
         @Override
         public void action() {
-            logger.info("{}: Waiting for negotiation request...", myAgent.getLocalName());
-            MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.REQUEST);
-            ACLMessage msg = myAgent.blockingReceive(mt);
-            if (msg != null) {
-                initialRequestMsg = msg;
-                buyerAgent = msg.getSender();
-                negotiationId = msg.getConversationId();
-                currentRound = 1;
-                logger.info("{} [R{}]: Received request from {}", myAgent.getLocalName(), currentRound, buyerAgent.getLocalName());
+            ACLMessage msg = myAgent.receive(template);
+            if (msg == null) {
+                block();
+                return;
+            }
+            String key = sessionKey(msg);
+            if (msg.getPerformative() == ACLMessage.REQUEST) {
+                NegotiationSession previous = sessions.remove(key);
+                if (previous != null) {
+                    logger.warn("{}: New request on active conversation {}; restarting session.", myAgent.getLocalName(), key);
+                    removeBehaviour(previous.deadline);
+                }
+                NegotiationSession session = new NegotiationSession(key, msg);
+                sessions.put(key, session);
+                session.start();
             } else {
-                logger.error("{}: Failed to receive initial request. Terminating.", myAgent.getLocalName());
-                myAgent.doDelete();
+                NegotiationSession session = sessions.get(key);
+                if (session == null || !session.buyerAgent.equals(msg.getSender())) {
+                    logger.debug("{}: Ignoring {} for unknown conversation {}", myAgent.getLocalName(),
+                            ACLMessage.getPerformative(msg.getPerformative()), key);
+                    return;
+                }
+                session.onResponse(msg);
+            }
+            if (sessions.get(key) != null && sessions.get(key).finished) {
+                removeBehaviour(sessions.remove(key).deadline);
+                logger.info("{}: Negotiation process finished ({} active).", myAgent.getLocalName(), sessions.size());
             }
         }
+    }
 
-        @Override
-        public int onEnd() {
-            return (buyerAgent != null ? 0 : 1);
-        }
+    private static String sessionKey(ACLMessage msg) {
+        return msg.getConversationId() != null ? msg.getConversationId() : msg.getSender().getName();
     }
 
     /**
-     * Estado 2: Envia a Proposta inicial.
-     * Na implementação atual (simplificada), envia UM ÚNICO lance,
-     * com um pacote de produtos hard-coded baseado no nome do agente.
+     * Estado de uma negociação bilateral com um comprador (uma conversa).
+     * Fluxo: REQUEST -> proposta inicial -> (contraproposta -> avaliação -> aceitação | nova proposta)*.
      */
-    private class SendInitialProposal extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{} [R{}]: Sending initial proposal to {}", myAgent.getLocalName(), currentRound, buyerAgent != null ? buyerAgent.getLocalName() : "unknown");
+    private class NegotiationSession {
+        private final String key;
+        private final AID buyerAgent;
+        private final String negotiationId;
+        private final ACLMessage initialRequestMsg;
+        private int currentRound;
+        private long lastActivity = System.currentTimeMillis();
+        private boolean finished;
+        private final ResponseDeadline deadline;
+
+        NegotiationSession(String key, ACLMessage request) {
+            this.key = key;
+            this.initialRequestMsg = request;
+            this.buyerAgent = request.getSender();
+            this.negotiationId = request.getConversationId();
+            this.currentRound = 1;
+            this.deadline = new ResponseDeadline(SellerAgent.this, responseTimeoutMillis) {
+                @Override
+                protected long lastActivity() {
+                    return lastActivity;
+                }
+
+                @Override
+                protected void onExpired() {
+                    logger.info("{}: Timeout waiting for response from {}. Ending negotiation.",
+                            getLocalName(), buyerAgent.getLocalName());
+                    sessions.remove(NegotiationSession.this.key, NegotiationSession.this);
+                }
+            };
+        }
+
+        void start() {
+            logger.info("{} [R{}]: Received request from {}", getLocalName(), currentRound, buyerAgent.getLocalName());
+            addBehaviour(deadline);
+            sendInitialProposal();
+        }
+
+        /**
+         * Resposta do comprador: aceitação da última oferta ou contraproposta.
+         */
+        void onResponse(ACLMessage msg) {
+            lastActivity = System.currentTimeMillis();
+            if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
+                logger.info("{} [R{}]: Buyer ACCEPTED my last offer!", getLocalName(), currentRound);
+                finished = true;
+                return;
+            }
+            logger.info("{} [R{}]: Received COUNTER-PROPOSAL from buyer.", getLocalName(), currentRound);
+            if (!evaluateCounterProposal(msg)) {
+                finished = true;
+            }
+        }
+
+        /**
+         * Envia a Proposta inicial.
+         * Na implementação atual (simplificada), envia UM ÚNICO lance,
+         * com o pacote de produtos configurado para o agente (ver {@code loadOfferedQuantities}).
+         */
+        private void sendInitialProposal() {
+            logger.info("{} [R{}]: Sending initial proposal to {}", getLocalName(), currentRound, buyerAgent.getLocalName());
             ConfigLoader config = ConfigLoader.getInstance();
             double initialPrice = config.getDouble("seller.initial.price");
             String initialQuality = config.getString("seller.initial.quality");
@@ -205,24 +347,9 @@ public class SellerAgent extends Agent {
             issues.add(new NegotiationIssue("Quality", initialQuality));
             issues.add(new NegotiationIssue("Delivery", initialDelivery));
             issues.add(new NegotiationIssue("Service", initialService));
-            ProductBundle pb;
-            int[] quantities;
-            String myName = myAgent.getLocalName();
-
-            if (myName.equals("s1")) {
-                pb = new ProductBundle(new int[]{1, 1, 0, 0}); // P1+P2
-                quantities = new int[]{1000, 1000, 0, 0};
-                logger.info("{}: Offering bundle P1+P2", myName);
-            } else if (myName.equals("s2")) {
-                pb = new ProductBundle(new int[]{0, 0, 1, 1}); // P3+P4
-                quantities = new int[]{0, 0, 2000, 2000};
-                logger.info("{}: Offering bundle P3+P4", myName);
-            } else { // s3
-                pb = new ProductBundle(new int[]{1, 0, 1, 0}); // P1+P3
-                quantities = new int[]{1000, 0, 2000, 0};
-                logger.info("{}: Offering bundle P1+P3", myName);
-            }
-            Bid initialBid = new Bid(pb, issues, quantities);
+            ProductBundle pb = new ProductBundle(offeredProducts());
+            logger.info("{}: Offering bundle {}", getLocalName(), bundleName(pb.getProducts()));
+            Bid initialBid = new Bid(pb, issues, offeredQuantities.clone());
 
             Proposal proposal = new Proposal(List.of(initialBid));
 
@@ -232,248 +359,145 @@ public class SellerAgent extends Agent {
             msg.setInReplyTo(initialRequestMsg.getReplyWith());
             msg.setReplyWith("prop-" + negotiationId + "-" + System.currentTimeMillis());
             try {
-                msg.setContentObject(proposal);
+                ProposalMessages.write(msg, proposal, proposalCodec);
                 String readableContent = String.format("INITIAL PROPOSAL - Bundle: %s, Price: %.2f", 
                     initialBid.getProductBundle().getProducts(), 
                     initialPrice);
                 msg.addUserDefinedParameter("readable-content", readableContent);
-                myAgent.send(msg);
-                logger.info("{}: Sent initial proposal -> Price: {}", myAgent.getLocalName(), initialPrice);
+                send(msg);
+                logger.info("{}: Sent initial proposal -> Price: {}", getLocalName(), initialPrice);
             } catch (IOException e) {
-                logger.error("{}: Error sending initial proposal", myAgent.getLocalName(), e);
-            }
-        }
-    }
-
-    /**
-     * Estado 3: Aguarda a resposta do Comprador (Aceitação ou Contraproposta).
-     * Esta lógica está correta (ao contrário do BuyerAgent).
-     */
-    private class WaitForResponse extends Behaviour {
-        private boolean responseReceived = false;
-        private int nextTransition = 0; // 0=Timeout/Accept, 1=CounterProposal
-        private long startTime;
-
-        public WaitForResponse(Agent a) {
-            super(a);
-        }
-
-        @Override
-        public void onStart() {
-            responseReceived = false;
-            startTime = System.currentTimeMillis();
-        }
-
-        @Override
-        public void action() {
-            MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchSender(buyerAgent),
-                    MessageTemplate.and(
-                            MessageTemplate.or(
-                                    MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL),
-                                    MessageTemplate.MatchPerformative(ACLMessage.PROPOSE)
-                            ),
-                            MessageTemplate.MatchConversationId(negotiationId)
-                    )
-            );
-            ACLMessage msg = myAgent.receive(mt);
-
-            if (msg != null) {
-                if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
-                    logger.info("{} [R{}]: Buyer ACCEPTED my last offer!", myAgent.getLocalName(), currentRound);
-                    nextTransition = 0; // Vai para EndNegotiation
-                } else { // É PROPOSE (contraproposta)
-                    logger.info("{} [R{}]: Received COUNTER-PROPOSAL from buyer.", myAgent.getLocalName(), currentRound);
-                    receivedCounterMsg = msg;
-                    nextTransition = 1; // Vai para EvaluateCounterProposal
-                }
-                responseReceived = true;
-            } else {
-                long elapsed = System.currentTimeMillis() - startTime;
-                long timeoutMillis = 15000;
-                if (elapsed > timeoutMillis) {
-                    logger.info("{}: Timeout waiting for response from {}. Ending negotiation.", myAgent.getLocalName(), buyerAgent != null ? buyerAgent.getLocalName() : "unknown");
-                    nextTransition = 0;
-                    responseReceived = true;
-                } else {
-                    block(500);
-                }
+                logger.error("{}: Error sending initial proposal", getLocalName(), e);
+                finished = true;
             }
         }
 
-        @Override
-        public boolean done() {
-            return responseReceived;
-        }
-
-        @Override
-        public int onEnd() {
-            return nextTransition;
-        }
-    }
-
-    /**
-     * Estado 4: Avalia a contraproposta recebida do Comprador.
-     * 
-     * IMPROVED: Now processes ALL bids in the counter-proposal.
-     */
-    private class EvaluateCounterProposal extends OneShotBehaviour {
-        private int transitionEvent = 2; // Default: falha/deadline
-        private List<Bid> acceptedBids = new ArrayList<>();
-        private List<Bid> rejectedBids = new ArrayList<>();
-
-        @Override
-        public void action() {
+        /**
+         * Avalia a contraproposta recebida do Comprador (todos os lances) e responde
+         * com aceitação ou nova proposta.
+         * @return true se a negociação continua (nova proposta enviada); false se terminou (deadline, falha ou aceitação).
+         */
+        private boolean evaluateCounterProposal(ACLMessage receivedCounterMsg) {
             currentRound++;
-            logger.info("{} [R{}]: Evaluating counter-proposal from {}", myAgent.getLocalName(), currentRound, buyerAgent != null ? buyerAgent.getLocalName() : "unknown");
+            logger.info("{} [R{}]: Evaluating counter-proposal from {}", getLocalName(), currentRound, buyerAgent.getLocalName());
 
             if (currentRound > maxRounds) {
-                logger.info("{}: Deadline reached ({}/{}). Ending negotiation.", myAgent.getLocalName(), currentRound, maxRounds);
-                transitionEvent = 2;
-                return;
+                logger.info("{}: Deadline reached ({}/{}). Ending negotiation.", getLocalName(), currentRound, maxRounds);
+                return false;
             }
 
+            Proposal p;
             try {
-                Serializable content = receivedCounterMsg.getContentObject();
-                if (content instanceof Proposal) {
-                    Proposal p = (Proposal) content;
-                    if (p.getBids() != null && !p.getBids().isEmpty()) {
-                        for (Bid counterBid : p.getBids()) {
-                            double utilityForSeller = evalService.calculateUtility("seller", counterBid, sellerWeights, sellerIssueParams, sellerRiskBeta);
-                            logger.debug("{}: Bid {} counter utility = {} (Threshold = {})",
-                                    myAgent.getLocalName(),
-                                    counterBid.getProductBundle().getProducts(),
-                                    String.format("%.4f", utilityForSeller),
-                                    String.format("%.4f", sellerAcceptanceThreshold));
-
-                            if (utilityForSeller >= sellerAcceptanceThreshold) {
-                                logger.info("{}: Bid {} ACCEPTABLE (utility {} >= threshold {})",
-                                    myAgent.getLocalName(),
-                                    counterBid.getProductBundle().getProducts(),
-                                    String.format("%.4f", utilityForSeller),
-                                    String.format("%.4f", sellerAcceptanceThreshold));
-                                acceptedBids.add(counterBid);
-                            } else {
-                                logger.debug("{}: Bid {} REJECTED (utility {} < threshold {})",
-                                    myAgent.getLocalName(),
-                                    counterBid.getProductBundle().getProducts(),
-                                    String.format("%.4f", utilityForSeller),
-                                    String.format("%.4f", sellerAcceptanceThreshold));
-                                rejectedBids.add(counterBid);
-                            }
-                        }
-                        if (!acceptedBids.isEmpty()) {
-                            logger.info("{}: Accepting {} out of {} bids", 
-                                myAgent.getLocalName(), acceptedBids.size(), p.getBids().size());
-                            transitionEvent = 1; // Accept
-                        } else {
-                            logger.info("{}: All {} bids rejected. Will make new proposal for round {}", 
-                                myAgent.getLocalName(), rejectedBids.size(), (currentRound + 1));
-                            transitionEvent = 0; // Reject/Counter
-                        }
-                    } else {
-                        transitionEvent = 2;
-                    }
+                p = ProposalMessages.read(receivedCounterMsg);
+            } catch (IOException e) {
+                logger.error("{}: Failed to read counter-proposal content.", getLocalName(), e);
+                return false;
+            }
+            if (p == null || p.getBids() == null || p.getBids().isEmpty()) {
+                return false;
+            }
+
+            List<Bid> acceptedBids = new ArrayList<>();
+            List<Bid> rejectedBids = new ArrayList<>();
+            double[] utilities = evalService.calculateUtilities(sellerEvaluator, p.getBids());
+            for (int b = 0; b < p.getBids().size(); b++) {
+                Bid counterBid = p.getBids().get(b);
+                double utilityForSeller = utilities[b];
+                logger.debug("{}: Bid {} counter utility = {} (Threshold = {})",
+                        getLocalName(),
+                        counterBid.getProductBundle().getProducts(),
+                        String.format("%.4f", utilityForSeller),
+                        String.format("%.4f", sellerAcceptanceThreshold));
+
+                if (utilityForSeller >= sellerAcceptanceThreshold) {
+                    logger.info("{}: Bid {} ACCEPTABLE (utility {} >= threshold {})",
+                        getLocalName(),
+                        counterBid.getProductBundle().getProducts(),
+                        String.format("%.4f", utilityForSeller),
+                        String.format("%.4f", sellerAcceptanceThreshold));
+                    acceptedBids.add(counterBid);
                 } else {
-                    transitionEvent = 2;
+                    logger.debug("{}: Bid {} REJECTED (utility {} < threshold {})",
+                        getLocalName(),
+                        counterBid.getProductBundle().getProducts(),
+                        String.format("%.4f", utilityForSeller),
+                        String.format("%.4f", sellerAcceptanceThreshold));
+                    rejectedBids.add(counterBid);
                 }
-            } catch (UnreadableException e) {
-                logger.error("{}: Failed to read counter-proposal content.", myAgent.getLocalName(), e);
-                transitionEvent = 2;
             }
+            if (!acceptedBids.isEmpty()) {
+                logger.info("{}: Accepting {} out of {} bids", 
+                    getLocalName(), acceptedBids.size(), p.getBids().size());
+                acceptCounterOffer(receivedCounterMsg, p);
+                return false;
+            }
+            logger.info("{}: All {} bids rejected. Will make new proposal for round {}", 
+                getLocalName(), rejectedBids.size(), (currentRound + 1));
+            return makeNewProposal(receivedCounterMsg, p);
         }
 
-        @Override
-        public int onEnd() {
-            return transitionEvent;
-        }
-    }
-
-    /**
-     * Estado 5: Aceita a contraproposta do Comprador.
-     */
-    private class AcceptCounterOffer extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{}: Sending acceptance for buyer's counter-offer.", myAgent.getLocalName());
+        /**
+         * Aceita a contraproposta do Comprador.
+         */
+        private void acceptCounterOffer(ACLMessage receivedCounterMsg, Proposal receivedP) {
+            logger.info("{}: Sending acceptance for buyer's counter-offer.", getLocalName());
             ACLMessage acceptMsg = new ACLMessage(ACLMessage.ACCEPT_PROPOSAL);
             acceptMsg.addReceiver(buyerAgent);
             acceptMsg.setConversationId(negotiationId);
             acceptMsg.setInReplyTo(receivedCounterMsg.getReplyWith());
             try {
-                Proposal receivedP = (Proposal) receivedCounterMsg.getContentObject();
-                if (!receivedP.getBids().isEmpty()) {
-                    Bid acceptedBid = receivedP.getBids().get(0);
-                    Object priceValue = acceptedBid.getIssues().get(0).getValue();
-                    String content = String.format("ACCEPTED - Bundle: %s, Final Price: %s", 
-                        acceptedBid.getProductBundle().getProducts(), 
-                        priceValue);
-                    acceptMsg.setContent(content);
-                } else {
-                    acceptMsg.setContent("Accepted your counter-offer.");
-                }
+                Bid acceptedBid = receivedP.getBids().get(0);
+                Object priceValue = acceptedBid.getIssues().get(0).getValue();
+                String content = String.format("ACCEPTED - Bundle: %s, Final Price: %s", 
+                    acceptedBid.getProductBundle().getProducts(), 
+                    priceValue);
+                acceptMsg.setContent(content);
             } catch (Exception e) {
                 acceptMsg.setContent("Accepted your counter-offer.");
             }
             
-            myAgent.send(acceptMsg);
+            send(acceptMsg);
         }
-    }
 
-    /**
-     * Estado 6: Gera e envia uma nova proposta (rejeitando a contraproposta).
-     * 
-     * IMPROVED: Now generates new proposals for ALL bids in the counter-proposal.
-     */
-    private class MakeNewProposal extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{} [R{}]: Generating new proposal...", myAgent.getLocalName(), currentRound);
+        /**
+         * Gera e envia uma nova proposta (rejeitando a contraproposta), com um lance
+         * novo para cada lance da contraproposta.
+         */
+        private boolean makeNewProposal(ACLMessage receivedCounterMsg, Proposal receivedP) {
+            logger.info("{} [R{}]: Generating new proposal...", getLocalName(), currentRound);
+
+            List<Bid> newSellerBids = new ArrayList<>();
+            for (Bid receivedB : receivedP.getBids()) {
+                Bid newSellerBid = concessionService.generateCounterBid(
+                        receivedB,
+                        currentRound,
+                        concessionSchedule,
+                        EvaluationService.paramsFor(receivedB.getProductBundle(), sellerIssueParams, sellerBundleParams),
+                        "seller"
+                );
+                newSellerBids.add(newSellerBid);
+                logger.debug("{}: Generated new proposal for bundle {} -> Price: {}", 
+                    getLocalName(),
+                    newSellerBid.getProductBundle().getProducts(),
+                    newSellerBid.getIssues().get(0).getValue());
+            }
 
+            Proposal newProposal = new Proposal(newSellerBids);
+            ACLMessage proposeMsg = new ACLMessage(ACLMessage.PROPOSE);
+            proposeMsg.addReceiver(buyerAgent);
+            proposeMsg.setConversationId(negotiationId);
+            proposeMsg.setInReplyTo(receivedCounterMsg.getReplyWith());
+            proposeMsg.setReplyWith("prop-" + negotiationId + "-" + System.currentTimeMillis());
             try {
-                Proposal receivedP = (Proposal) receivedCounterMsg.getContentObject();
-                List<Bid> newSellerBids = new ArrayList<>();
-                for (Bid receivedB : receivedP.getBids()) {
-                    Bid newSellerBid = concessionService.generateCounterBid(
-                            receivedB,
-                            currentRound,
-                            maxRounds,
-                            sellerGamma,
-                            discountRate,
-                            sellerIssueParams,
-                            "seller"
-                    );
-                    newSellerBids.add(newSellerBid);
-                    logger.debug("{}: Generated new proposal for bundle {} -> Price: {}", 
-                        myAgent.getLocalName(),
-                        newSellerBid.getProductBundle().getProducts(),
-                        newSellerBid.getIssues().get(0).getValue());
-                }
-
-                Proposal newProposal = new Proposal(newSellerBids);
-                ACLMessage proposeMsg = new ACLMessage(ACLMessage.PROPOSE);
-                proposeMsg.addReceiver(buyerAgent);
-                proposeMsg.setConversationId(negotiationId);
-                proposeMsg.setInReplyTo(receivedCounterMsg.getReplyWith());
-                proposeMsg.setReplyWith("prop-" + negotiationId + "-" + System.currentTimeMillis());
-                proposeMsg.setContentObject(newProposal);
-                myAgent.send(proposeMsg);
+                ProposalMessages.write(proposeMsg, newProposal, proposalCodec);
+                send(proposeMsg);
                 logger.info("{}: Sent new proposal (Round {}) with {} bids", 
-                    myAgent.getLocalName(), currentRound, newSellerBids.size());
-
-            } catch (UnreadableException | IOException e) {
-                logger.error("{}: Error creating/sending new proposal", myAgent.getLocalName(), e);
+                    getLocalName(), currentRound, newSellerBids.size());
+                return true;
+            } catch (IOException e) {
+                logger.error("{}: Error creating/sending new proposal", getLocalName(), e);
+                return false;
             }
         }
     }
-
-    /**
-     * Estado Final (FSM): Ações de finalização da negociação.
-     */
-    private static class EndNegotiation extends OneShotBehaviour {
-        @Override
-        public void action() {
-            logger.info("{}: Negotiation process finished.", myAgent.getLocalName());
-        }
-    }
-}
\ No newline at end of file
+}
@@ -2,46 +2,106 @@ package mas.agents;
 
 import jade.core.AID;
 import jade.core.Agent;
-import jade.core.behaviours.OneShotBehaviour;
+import jade.core.behaviours.WakerBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.SearchConstraints;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
 import jade.lang.acl.ACLMessage;
+import jade.proto.SubscriptionInitiator;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * Configura o Sniffer: depois de 1 s (tempo de o Sniffer subir) registra os agentes fixos
+ * e assina o DF pelos vendedores ({@link SellerAgent#SERVICE_TYPE}), sem limite de resultados.
+ * Vendedores que se registram mais tarde chegam pela assinatura e também passam a ser monitorados.
+ */
 public class SnifferConfigAgent extends Agent {
-    
+
+    private final Set<AID> sniffed = new HashSet<>();
+    private SellerSubscription subscription;
+
     @Override
     protected void setup() {
-        addBehaviour(new OneShotBehaviour() {
+        addBehaviour(new WakerBehaviour(this, 1000) {
             @Override
-            public void action() {
-                try {
-                    Thread.sleep(1000); // Aguarda 1 segundo
-                    List<AID> agentsToSniff = new ArrayList<>();
-                    agentsToSniff.add(new AID("ca", AID.ISLOCALNAME));
-                    agentsToSniff.add(new AID("sda", AID.ISLOCALNAME));
-                    agentsToSniff.add(new AID("tda", AID.ISLOCALNAME));
-                    agentsToSniff.add(new AID("s1", AID.ISLOCALNAME));
-                    agentsToSniff.add(new AID("s2", AID.ISLOCALNAME));
-                    agentsToSniff.add(new AID("s3", AID.ISLOCALNAME));
-                    AID snifferAID = new AID("sniffer", AID.ISLOCALNAME);
-                    ACLMessage sniffMsg = new ACLMessage(ACLMessage.REQUEST);
-                    sniffMsg.addReceiver(snifferAID);
-                    sniffMsg.setOntology("JADE-Sniffer");
-                    StringBuilder content = new StringBuilder();
-                    for (AID agent : agentsToSniff) {
-                        content.append(agent.getName()).append(";");
+            protected void onWake() {
+                List<AID> agentsToSniff = new ArrayList<>();
+                agentsToSniff.add(new AID("ca", AID.ISLOCALNAME));
+                agentsToSniff.add(new AID("sda", AID.ISLOCALNAME));
+                agentsToSniff.add(new AID("tda", AID.ISLOCALNAME));
+                sniff(agentsToSniff);
+                subscription = new SellerSubscription();
+                myAgent.addBehaviour(subscription);
+            }
+        });
+    }
+
+    @Override
+    protected void takeDown() {
+        if (subscription != null) subscription.cancel(getDefaultDF(), true);
+        super.takeDown();
+    }
+
+    /**
+     * Vendedores registrados no DF: a primeira notificação traz os já registrados,
+     * as seguintes os que chegam depois.
+     */
+    private class SellerSubscription extends SubscriptionInitiator {
+        SellerSubscription() {
+            super(SnifferConfigAgent.this, DFService.createSubscriptionMessage(
+                    SnifferConfigAgent.this, getDefaultDF(), sellerTemplate(), unlimited()));
+        }
+
+        @Override
+        protected void handleInform(ACLMessage inform) {
+            try {
+                List<AID> agentsToSniff = new ArrayList<>();
+                for (DFAgentDescription dfd : DFService.decodeNotification(inform.getContent())) {
+                    // Sem serviços: o vendedor saiu do DF (o Sniffer continua com ele na lista).
+                    if (dfd.getAllServices().hasNext() && sniffed.add(dfd.getName())) {
+                        agentsToSniff.add(dfd.getName());
                     }
-                    sniffMsg.setContent(content.toString());
-                    send(sniffMsg);
-                    
-                    System.out.println("[SnifferConfig] Configured Sniffer to monitor: " + agentsToSniff.size() + " agents");
-                    doDelete();
-                    
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
                 }
+                if (!agentsToSniff.isEmpty()) sniff(agentsToSniff);
+            } catch (FIPAException e) {
+                e.printStackTrace();
             }
-        });
+        }
+    }
+
+    private void sniff(List<AID> agentsToSniff) {
+        AID snifferAID = new AID("sniffer", AID.ISLOCALNAME);
+        ACLMessage sniffMsg = new ACLMessage(ACLMessage.REQUEST);
+        sniffMsg.addReceiver(snifferAID);
+        sniffMsg.setOntology("JADE-Sniffer");
+        StringBuilder content = new StringBuilder();
+        for (AID agent : agentsToSniff) {
+            content.append(agent.getName()).append(";");
+        }
+        sniffMsg.setContent(content.toString());
+        send(sniffMsg);
+
+        System.out.println("[SnifferConfig] Configured Sniffer to monitor: " + agentsToSniff.size() + " agents");
+    }
+
+    private static DFAgentDescription sellerTemplate() {
+        DFAgentDescription template = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(SellerAgent.SERVICE_TYPE);
+        template.addServices(sd);
+        return template;
+    }
+
+    /** Sem o limite padrão de resultados do DF (100). */
+    private static SearchConstraints unlimited() {
+        SearchConstraints constraints = new SearchConstraints();
+        constraints.setMaxResults(-1L);
+        return constraints;
     }
 }
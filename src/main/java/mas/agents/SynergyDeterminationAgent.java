@@ -4,20 +4,48 @@ import jade.core.Agent;
 import jade.core.behaviours.CyclicBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import mas.logic.BundleGenerator;
+import mas.logic.ConfigLoader;
 import mas.models.ProductBundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.Serializable;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Responde ao CA com os pacotes preferidos para a demanda do ciclo (conteúdo do pedido:
+ * quantidades por produto, ex: "1000,1000,0,0"). Os pacotes vêm do {@link BundleGenerator}
+ * e a resposta já serializada fica num cache LRU por máscara de demanda ('sda.cacheSize'),
+ * então demandas repetidas do TDA são respondidas sem gerar nem serializar de novo.
+ */
 public class SynergyDeterminationAgent extends Agent {
 
     private static final Logger logger = LoggerFactory.getLogger(SynergyDeterminationAgent.class);
 
+    /** Demanda assumida quando o pedido não informa uma (os 4 produtos originais). */
+    private static final int[] DEFAULT_DEMAND = {1, 1, 1, 1};
+
+    private BundleGenerator bundleGenerator;
+    private Map<Long, CachedBundles> bundleCache;
+
     protected void setup() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        this.bundleGenerator = BundleGenerator.fromConfig(config);
+        int cacheSize = Math.max(1, config.getInt("sda.cacheSize", 64));
+        this.bundleCache = new LinkedHashMap<Long, CachedBundles>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedBundles> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
         logger.info("SDA {} is ready.", getAID().getName());
         addBehaviour(new CyclicBehaviour() {
             public void action() {
@@ -29,12 +57,13 @@ public class SynergyDeterminationAgent extends Agent {
 
                 if (msg != null) {
                     logger.info("SDA: Received request for product bundles from {}", msg.getSender().getName());
-                    List<ProductBundle> preferredBundles = generatePreferredBundles();
-
                     ACLMessage reply = msg.createReply();
                     reply.setPerformative(ACLMessage.INFORM);
+                    // Devolve o id do ciclo de demanda (a conversation-id já é copiada pelo createReply).
+                    String cycleId = msg.getUserDefinedParameter(CoordinatorAgent.CYCLE_ID);
+                    if (cycleId != null) reply.addUserDefinedParameter(CoordinatorAgent.CYCLE_ID, cycleId);
                     try {
-                        reply.setContentObject((Serializable) preferredBundles);
+                        reply.setByteSequenceContent(preferredBundlesFor(parseDemand(msg.getContent())));
                         myAgent.send(reply);
                         logger.info("SDA: Sent preferred product bundles back to CA (to {}).", msg.getSender().getName());
                     } catch (IOException e) {
@@ -48,18 +77,55 @@ public class SynergyDeterminationAgent extends Agent {
         });
     }
 
-    private List<ProductBundle> generatePreferredBundles() {
-        List<ProductBundle> bundles = new ArrayList<>();
-        bundles.add(new ProductBundle(new int[]{1, 0, 0, 0})); // P1
-        bundles.add(new ProductBundle(new int[]{0, 1, 0, 0})); // P2
-        bundles.add(new ProductBundle(new int[]{0, 0, 1, 0})); // P3
-        bundles.add(new ProductBundle(new int[]{0, 0, 0, 1})); // P4
-        bundles.add(new ProductBundle(new int[]{1, 1, 0, 0})); // P1P2
-        bundles.add(new ProductBundle(new int[]{1, 0, 1, 0})); // P1P3
-        bundles.add(new ProductBundle(new int[]{1, 0, 0, 1})); // P1P4
-        bundles.add(new ProductBundle(new int[]{0, 1, 1, 0})); // P2P3
-        bundles.add(new ProductBundle(new int[]{0, 1, 0, 1})); // P2P4
-        bundles.add(new ProductBundle(new int[]{0, 0, 1, 1})); // P3P4
-        return bundles;
+    /**
+     * Lista de pacotes serializada (mesmo formato de {@code setContentObject}), do cache quando possível.
+     */
+    private byte[] preferredBundlesFor(int[] demand) throws IOException {
+        long mask = 0L;
+        boolean cacheable = demand.length <= Long.SIZE;
+        for (int p = 0; p < demand.length && cacheable; p++) {
+            if (demand[p] > 0) mask |= 1L << p;
+        }
+        CachedBundles cached = cacheable ? bundleCache.get(mask) : null;
+        if (cached != null && cached.products == demand.length) {
+            logger.debug("SDA: Bundle cache hit for demand {}.", Arrays.toString(demand));
+            return cached.content;
+        }
+
+        List<ProductBundle> bundles = bundleGenerator.generate(demand);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new ArrayList<>(bundles));
+        }
+        byte[] content = bytes.toByteArray();
+        logger.info("SDA: Generated {} bundle(s) for demand {}.", bundles.size(), Arrays.toString(demand));
+        if (cacheable) bundleCache.put(mask, new CachedBundles(demand.length, content));
+        return content;
+    }
+
+    private int[] parseDemand(String content) {
+        if (content == null || content.trim().isEmpty()) return DEFAULT_DEMAND;
+        String[] parts = content.split(",");
+        int[] demand = new int[parts.length];
+        try {
+            for (int p = 0; p < parts.length; p++) demand[p] = Integer.parseInt(parts[p].trim());
+            return demand;
+        } catch (NumberFormatException e) {
+            logger.warn("SDA: Request without a demand vector ('{}'). Using default demand.", content);
+            return DEFAULT_DEMAND;
+        }
+    }
+
+    /**
+     * Resposta serializada para uma máscara de demanda (com o número de produtos do vetor).
+     */
+    private static final class CachedBundles {
+        final int products;
+        final byte[] content;
+
+        CachedBundles(int products, byte[] content) {
+            this.products = products;
+            this.content = content;
+        }
     }
 }
@@ -22,7 +22,8 @@ public class TaskDecomposerAgent extends Agent {
         {"P1"},
         {"P3"},
         {"P2"},
-        {"P1,P2"}  
+        {"P1,P2"},
+        {"P1:1500,P3:2500"}
     };
 
     protected void setup() {
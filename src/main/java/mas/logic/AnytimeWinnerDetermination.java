@@ -0,0 +1,93 @@
+package mas.logic;
+
+import java.util.Arrays;
+import java.util.List;
+
+import mas.models.NegotiationResult;
+
+/**
+ * Resolução "anytime" do WDP: sempre devolve uma resposta dentro do orçamento de tempo.
+ * 1. Uma heurística gulosa (utilidade por produto coberto) gera uma solução inicial.
+ * 2. O Branch-and-Bound em bits melhora essa solução até o prazo.
+ * 3. Se o prazo estourar, devolve a melhor combinação encontrada com o gap em relação
+ *    ao limitante superior da raiz.
+ */
+public class AnytimeWinnerDetermination {
+
+    private final List<WdpBound> bounds;
+
+    public AnytimeWinnerDetermination() {
+        this(Arrays.asList(WdpBound.suffixSum(), WdpBound.supplierBest()));
+    }
+
+    public AnytimeWinnerDetermination(List<WdpBound> bounds) {
+        this.bounds = bounds;
+    }
+
+    /**
+     * @param results       Os resultados das negociações (a lista não é modificada).
+     * @param productDemand O vetor de demanda.
+     * @param budgetMillis  Orçamento de tempo para a busca.
+     * @return A melhor combinação encontrada, com limitante superior e gap.
+     */
+    public WinnerDeterminationResult solve(List<NegotiationResult> results, int[] productDemand, long budgetMillis) {
+        long deadline = System.nanoTime() + Math.max(0, budgetMillis) * 1_000_000L;
+        WdpInstance inst = WdpInstance.encode(results, productDemand);
+
+        int[] seed = greedySeed(inst);
+        double seedUtility = 0.0;
+        for (int i : seed) seedUtility += inst.utilities[i];
+
+        BitmaskWinnerDetermination solver = new BitmaskWinnerDetermination(bounds);
+        List<NegotiationResult> winners = solver.solve(inst, seed, seedUtility, deadline);
+        boolean optimal = !solver.isTimedOut();
+        return new WinnerDeterminationResult(winners, solver.getBestUtility(), solver.getRootUpperBound(),
+                optimal, solver.getNodesExplored());
+    }
+
+    /**
+     * Heurística gulosa: percorre os resultados por utilidade por produto demandado coberto
+     * e pega os que cobrem algo ainda descoberto, sem repetir fornecedor. Depois de cobrir
+     * a demanda, acrescenta os demais resultados compatíveis (utilidades não negativas só somam).
+     * @return Índices da solução na ordem da instância, ou vazio se a heurística não cobrir a demanda.
+     */
+    static int[] greedySeed(WdpInstance inst) {
+        int n = inst.size();
+        Integer[] order = new Integer[n];
+        double[] ratio = new double[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            int products = Long.bitCount(inst.bundleMasks[i] & inst.demandMask);
+            ratio[i] = inst.utilities[i] / Math.max(1, products);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(ratio[b], ratio[a]));
+
+        boolean[] usedSupplier = new boolean[inst.supplierCount];
+        boolean[] chosen = new boolean[n];
+        long covered = 0L;
+        for (int k = 0; k < n && (covered & inst.demandMask) != inst.demandMask; k++) {
+            int i = order[k];
+            if (usedSupplier[inst.supplierIds[i]]) continue;
+            if ((inst.bundleMasks[i] & inst.demandMask & ~covered) == 0L) continue;
+            usedSupplier[inst.supplierIds[i]] = true;
+            chosen[i] = true;
+            covered |= inst.bundleMasks[i];
+        }
+        if ((covered & inst.demandMask) != inst.demandMask) {
+            return new int[0];
+        }
+        for (int i = 0; i < n; i++) {
+            if (!chosen[i] && !usedSupplier[inst.supplierIds[i]] && inst.utilities[i] > 0) {
+                usedSupplier[inst.supplierIds[i]] = true;
+                chosen[i] = true;
+            }
+        }
+
+        int[] selection = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (chosen[i]) selection[size++] = i;
+        }
+        return Arrays.copyOf(selection, size);
+    }
+}
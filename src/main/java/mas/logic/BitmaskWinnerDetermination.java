@@ -0,0 +1,164 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mas.models.NegotiationResult;
+
+/**
+ * Branch-and-Bound do WDP sobre máscaras de bits.
+ * Mesma árvore de busca da versão baseada em listas, mas a cobertura da demanda
+ * é acumulada como uma máscara (verificação em uma única operação AND) e os
+ * fornecedores usados ficam em um vetor de bits indexado pelo id denso.
+ * A poda é feita pela cadeia de limitantes ({@link WdpBound}) configurada.
+ */
+public class BitmaskWinnerDetermination {
+
+    private final List<WdpBound> bounds;
+    private WdpInstance instance;
+    private long[] usedSuppliers;
+    private int[] currentSelection;
+    private int currentSize;
+    private int[] bestSelection;
+    private int bestSize;
+    private double maxUtility;
+    private long nodesExplored;
+    private long deadlineNanos;
+    private boolean timedOut;
+    private double rootUpperBound;
+
+    /**
+     * Usa os limitantes padrão: soma de sufixos e melhor resultado por fornecedor.
+     */
+    public BitmaskWinnerDetermination() {
+        this(WdpBound.suffixSum(), WdpBound.supplierBest());
+    }
+
+    /**
+     * @param bounds Limitantes consultados em ordem em cada nó; o primeiro que podar é contabilizado.
+     */
+    public BitmaskWinnerDetermination(WdpBound... bounds) {
+        this(Arrays.asList(bounds));
+    }
+
+    public BitmaskWinnerDetermination(List<WdpBound> bounds) {
+        if (bounds.isEmpty()) {
+            throw new IllegalArgumentException("At least one bound is required");
+        }
+        this.bounds = new ArrayList<>(bounds);
+    }
+
+    public List<WdpBound> getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Número de nós visitados na última resolução.
+     */
+    public long getNodesExplored() {
+        return nodesExplored;
+    }
+
+    /**
+     * Indica se a última resolução foi interrompida pelo prazo (solução não comprovadamente ótima).
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Menor limitante superior calculado na raiz da última resolução.
+     */
+    public double getRootUpperBound() {
+        return rootUpperBound;
+    }
+
+    /**
+     * Utilidade da melhor combinação encontrada na última resolução.
+     */
+    public double getBestUtility() {
+        return maxUtility;
+    }
+
+    /**
+     * Resolve o WDP para a lista de resultados e a demanda informadas.
+     * @param results Os resultados das negociações (a lista não é modificada).
+     * @param productDemand O vetor de demanda (ex: [1, 1, 0, 1]).
+     * @return A combinação ótima, ou lista vazia se nenhuma combinação satisfaz a demanda.
+     */
+    public List<NegotiationResult> solve(List<NegotiationResult> results, int[] productDemand) {
+        return solve(WdpInstance.encode(results, productDemand));
+    }
+
+    List<NegotiationResult> solve(WdpInstance inst) {
+        return solve(inst, new int[0], 0.0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Resolve partindo de uma solução inicial (incumbente) e com prazo opcional.
+     * @param seedSelection Índices (na ordem da instância) de uma combinação viável, ou vazio.
+     * @param seedUtility   Utilidade dessa combinação.
+     * @param deadlineNanos Instante limite em {@link System#nanoTime()}, ou {@code Long.MAX_VALUE} para sem prazo.
+     */
+    List<NegotiationResult> solve(WdpInstance inst, int[] seedSelection, double seedUtility, long deadlineNanos) {
+        this.instance = inst;
+        this.usedSuppliers = new long[(inst.supplierCount + 63) >>> 6];
+        this.currentSelection = new int[inst.size()];
+        this.currentSize = 0;
+        this.bestSelection = new int[inst.size()];
+        System.arraycopy(seedSelection, 0, bestSelection, 0, seedSelection.length);
+        this.bestSize = seedSelection.length;
+        this.maxUtility = seedUtility;
+        this.nodesExplored = 0;
+        this.deadlineNanos = deadlineNanos;
+        this.timedOut = false;
+        this.rootUpperBound = Double.POSITIVE_INFINITY;
+        for (WdpBound bound : bounds) {
+            bound.prepare(inst);
+            rootUpperBound = Math.min(rootUpperBound, bound.upperBound(0, 0.0, 0L, usedSuppliers));
+        }
+
+        branchAndBoundRecursive(0, 0.0, 0L);
+        return inst.toResults(bestSelection, bestSize);
+    }
+
+    private void branchAndBoundRecursive(int index, double currentUtility, long covered) {
+        if (timedOut) {
+            return;
+        }
+        if ((++nodesExplored & 1023) == 0 && deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos > 0) {
+            timedOut = true;
+            return;
+        }
+        for (int b = 0; b < bounds.size(); b++) {
+            WdpBound bound = bounds.get(b);
+            if (bound.upperBound(index, currentUtility, covered, usedSuppliers) <= maxUtility) {
+                bound.recordPrune();
+                return;
+            }
+        }
+        double[] utilities = instance.utilities;
+        if (index == utilities.length) {
+            long demand = instance.demandMask;
+            if ((covered & demand) == demand && currentUtility > maxUtility) {
+                maxUtility = currentUtility;
+                System.arraycopy(currentSelection, 0, bestSelection, 0, currentSize);
+                bestSize = currentSize;
+            }
+            return;
+        }
+
+        int supplier = instance.supplierIds[index];
+        int word = supplier >>> 6;
+        long bit = 1L << supplier;
+        if ((usedSuppliers[word] & bit) == 0) {
+            usedSuppliers[word] |= bit;
+            currentSelection[currentSize++] = index;
+            branchAndBoundRecursive(index + 1, currentUtility + utilities[index], covered | instance.bundleMasks[index]);
+            currentSize--;
+            usedSuppliers[word] &= ~bit;
+        }
+        branchAndBoundRecursive(index + 1, currentUtility, covered);
+    }
+}
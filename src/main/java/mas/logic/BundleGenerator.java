@@ -0,0 +1,126 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mas.models.ProductBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gera os pacotes preferidos (usados pelo SDA) a partir da demanda.
+ * <p>
+ * Só entram produtos demandados, e os pacotes são montados por tamanho: cada pacote de
+ * tamanho k estende um pacote aceito de tamanho k-1 com um produto de índice maior. A
+ * sinergia entre dois produtos vem de 'sda.synergy.&lt;i&gt;.&lt;j&gt;' (produtos numerados a partir de 1;
+ * &gt; 1 complementares, &lt; 1 substitutos), e um pacote só é aceito se todos os seus pares têm
+ * sinergia &gt;= 'sda.minSynergy'. Como a regra vale para qualquer subconjunto, um pacote
+ * descartado não é estendido, e o espaço 2^m nunca é enumerado por inteiro.
+ * Produtos isolados são sempre aceitos.
+ */
+public class BundleGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BundleGenerator.class);
+
+    private final int maxBundleSize;
+    private final double minSynergy;
+    private final double defaultSynergy;
+    private final Map<Long, Double> pairSynergies; // par (i, j), i < j (base 0) -> sinergia
+
+    public BundleGenerator(int maxBundleSize, double minSynergy, double defaultSynergy, Map<Long, Double> pairSynergies) {
+        this.maxBundleSize = Math.max(1, maxBundleSize);
+        this.minSynergy = minSynergy;
+        this.defaultSynergy = defaultSynergy;
+        this.pairSynergies = pairSynergies;
+    }
+
+    /**
+     * Lê 'sda.maxBundleSize' (padrão 2), 'sda.minSynergy' (padrão 1.0),
+     * 'sda.defaultSynergy' (padrão 1.0) e os pares 'sda.synergy.&lt;i&gt;.&lt;j&gt;'.
+     * Com os padrões, gera todos os pacotes de 1 e 2 produtos da demanda.
+     */
+    public static BundleGenerator fromConfig(ConfigLoader config) {
+        Map<Long, Double> pairs = new HashMap<>();
+        String prefix = "sda.synergy.";
+        for (String key : config.keysStartingWith(prefix)) {
+            String[] parts = key.substring(prefix.length()).split("\\.");
+            try {
+                int p = Integer.parseInt(parts[0].trim()) - 1;
+                int q = Integer.parseInt(parts[1].trim()) - 1;
+                if (p < 0 || q < 0 || p == q) throw new NumberFormatException("invalid product pair");
+                pairs.put(pairKey(p, q), Double.parseDouble(config.getString(key).trim()));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                logger.warn("BundleGenerator Warning: Ignoring synergy entry '{}'.", key);
+            }
+        }
+        return new BundleGenerator(
+                config.getInt("sda.maxBundleSize", 2),
+                parseDouble(config.getString("sda.minSynergy"), 1.0),
+                parseDouble(config.getString("sda.defaultSynergy"), 1.0),
+                pairs);
+    }
+
+    /**
+     * Pacotes relevantes para a demanda (produtos com demanda &gt; 0), do menor para o maior
+     * e, dentro de cada tamanho, em ordem lexicográfica dos produtos.
+     */
+    public List<ProductBundle> generate(int[] demand) {
+        int m = demand.length;
+        List<Integer> demanded = new ArrayList<>();
+        for (int p = 0; p < m; p++) {
+            if (demand[p] > 0) demanded.add(p);
+        }
+
+        List<ProductBundle> bundles = new ArrayList<>();
+        List<int[]> level = new ArrayList<>();
+        for (int p : demanded) level.add(new int[]{p});
+        for (int size = 1; !level.isEmpty(); size++) {
+            for (int[] members : level) bundles.add(toBundle(members, m));
+            if (size == maxBundleSize) break;
+            List<int[]> next = new ArrayList<>();
+            for (int[] members : level) {
+                for (int q : demanded) {
+                    if (q <= members[members.length - 1] || !compatible(members, q)) continue;
+                    int[] extended = new int[members.length + 1];
+                    System.arraycopy(members, 0, extended, 0, members.length);
+                    extended[members.length] = q;
+                    next.add(extended);
+                }
+            }
+            level = next;
+        }
+        return bundles;
+    }
+
+    private boolean compatible(int[] members, int q) {
+        for (int p : members) {
+            if (synergy(p, q) < minSynergy) return false;
+        }
+        return true;
+    }
+
+    private double synergy(int p, int q) {
+        return pairSynergies.getOrDefault(pairKey(p, q), defaultSynergy);
+    }
+
+    static long pairKey(int p, int q) {
+        return ((long) Math.min(p, q) << 32) | Math.max(p, q);
+    }
+
+    private static ProductBundle toBundle(int[] members, int m) {
+        int[] products = new int[m];
+        for (int p : members) products[p] = 1;
+        return new ProductBundle(products);
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
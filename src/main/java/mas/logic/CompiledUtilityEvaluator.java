@@ -0,0 +1,477 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mas.logic.EvaluationService.IssueParameters;
+import mas.logic.EvaluationService.IssueType;
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import mas.models.ProductBundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Função de utilidade (Eq. 4) "compilada" a partir dos pesos, parâmetros e β de um agente.
+ * Criada por {@link EvaluationService#compile}, uma vez por agente.
+ * <p>
+ * Só entram os issues com peso não nulo e parâmetros definidos; cada um vira um índice
+ * nos arrays primitivos abaixo. A busca do issue do lance tenta primeiro o issue visto na
+ * mesma posição do lance anterior (os lances trazem os issues sempre na mesma ordem) e
+ * depois uma tabela hash calculada sem diferenciar maiúsculas (sem toLowerCase). Os termos linguísticos são casados
+ * caractere a caractere com as mesmas regras de normalização do serviço
+ * ('_' equivale a espaço, sem caixa, sem espaços nas pontas). Nenhuma avaliação aloca memória.
+ * <p>
+ * Intervalos por pacote (sinergia): cada pacote com parâmetros próprios vira um perfil,
+ * um par de arrays [min]/[max] alinhado aos índices dos issues, com os valores genéricos
+ * nos issues que o pacote não redefine. O perfil do lance é achado pela máscara do seu
+ * pacote numa tabela hash de {@code long} (endereçamento aberto); daí em diante cada issue
+ * é só um acesso a array, com um ou com milhares de pacotes.
+ */
+public final class CompiledUtilityEvaluator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledUtilityEvaluator.class);
+
+    private static final byte COST = 0;
+    private static final byte BENEFIT = 1;
+    private static final byte QUALITATIVE = 2;
+    private static final int MAX_WARNED_TERMS = 64;
+
+    private final String agentType;
+    private final double riskBeta;
+
+    // Issues compilados (índice = posição nos arrays)
+    private final String[] names;
+    private final double[] weights;
+    private final double[] mins;
+    private final double[] maxs;
+    private final byte[] kinds;
+    private final int[] slots; // tabela hash (endereçamento aberto) nome -> índice, -1 = vazio
+
+    // Perfis de intervalo: 0 = genérico (mins/maxs), 1.. = pacotes com parâmetros próprios
+    private final double[][] profileMins;
+    private final double[][] profileMaxs;
+    private final long[] bundleMasks;   // tabela hash máscara do pacote -> perfil
+    private final int[] bundleProfiles; // perfil de cada posição, 0 = vazio
+
+    // Memória da última grafia vista de cada issue e do issue visto em cada posição do lance.
+    // Só servem de atalho (sempre conferidos antes do uso), então leituras desatualizadas
+    // entre threads apenas levam ao caminho lento.
+    private final String[] spellings;
+    private final int[] positionHints;
+
+    // Termos linguísticos: forma com espaço ("very good"), forma compacta ("verygood") e valor defuzzificado
+    private final char[][] spacedTerms;
+    private final char[][] compactTerms;
+    private final double[] termUtilities;
+    // Termos desconhecidos já avisados no log
+    private final Set<String> warnedTerms = ConcurrentHashMap.newKeySet();
+
+    CompiledUtilityEvaluator(String agentType, Map<String, Double> weightMap, Map<String, IssueParameters> issueParams,
+                             Map<Long, Map<String, IssueParameters>> bundleParams,
+                             double riskBeta, Map<String, double[]> tfnMap, String[] terms) {
+        this.agentType = agentType;
+        this.riskBeta = riskBeta <= 0 ? 1.0 : riskBeta;
+
+        List<String> compiled = new ArrayList<>();
+        if (weightMap != null && issueParams != null) {
+            for (Map.Entry<String, Double> e : weightMap.entrySet()) {
+                String name = e.getKey();
+                if (name == null || !name.equals(name.toLowerCase())) continue; // nunca casaria com toLowerCase()
+                if (e.getValue() == null || Math.abs(e.getValue()) < 1e-9) continue;
+                if (issueParams.get(name) == null) continue;
+                compiled.add(name);
+            }
+        }
+        int k = compiled.size();
+        names = compiled.toArray(new String[0]);
+        weights = new double[k];
+        mins = new double[k];
+        maxs = new double[k];
+        kinds = new byte[k];
+        for (int i = 0; i < k; i++) {
+            IssueParameters params = issueParams.get(names[i]);
+            weights[i] = weightMap.get(names[i]);
+            mins[i] = params.getMin();
+            maxs[i] = params.getMax();
+            kinds[i] = params.getType() == IssueType.QUALITATIVE ? QUALITATIVE
+                    : params.getType() == IssueType.COST ? COST : BENEFIT;
+        }
+        spellings = new String[k];
+        positionHints = new int[2 * k];
+        Arrays.fill(positionHints, -1);
+        slots = new int[Integer.highestOneBit(Math.max(1, 2 * k)) << 1];
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < k; i++) {
+            int slot = hash(names[i]) & (slots.length - 1);
+            while (slots[slot] >= 0) slot = (slot + 1) & (slots.length - 1);
+            slots[slot] = i;
+        }
+
+        int bundles = bundleParams.size();
+        profileMins = new double[bundles + 1][];
+        profileMaxs = new double[bundles + 1][];
+        profileMins[0] = mins;
+        profileMaxs[0] = maxs;
+        bundleMasks = new long[Integer.highestOneBit(Math.max(1, 2 * bundles)) << 1];
+        bundleProfiles = new int[bundleMasks.length];
+        int profile = 0;
+        for (Map.Entry<Long, Map<String, IssueParameters>> e : bundleParams.entrySet()) {
+            profile++;
+            double[] bundleMins = mins.clone();
+            double[] bundleMaxs = maxs.clone();
+            for (int i = 0; i < k; i++) {
+                IssueParameters params = e.getValue().get(names[i]);
+                if (params == null || kinds[i] == QUALITATIVE) continue;
+                bundleMins[i] = params.getMin();
+                bundleMaxs[i] = params.getMax();
+            }
+            profileMins[profile] = bundleMins;
+            profileMaxs[profile] = bundleMaxs;
+            int slot = hash(e.getKey()) & (bundleMasks.length - 1);
+            while (bundleProfiles[slot] != 0) slot = (slot + 1) & (bundleMasks.length - 1);
+            bundleMasks[slot] = e.getKey();
+            bundleProfiles[slot] = profile;
+        }
+
+        List<double[]> tfns = new ArrayList<>();
+        List<String> present = new ArrayList<>();
+        for (String term : terms) {
+            String spaced = term.replace("_", " ").toLowerCase();
+            double[] tfn = tfnMap.get(spaced);
+            if (tfn != null) {
+                present.add(spaced);
+                tfns.add(tfn);
+            }
+        }
+        spacedTerms = new char[present.size()][];
+        compactTerms = new char[present.size()][];
+        termUtilities = new double[present.size()];
+        for (int t = 0; t < present.size(); t++) {
+            spacedTerms[t] = present.get(t).toCharArray();
+            compactTerms[t] = present.get(t).replace(" ", "").toCharArray();
+            double[] tfn = tfns.get(t);
+            termUtilities[t] = (tfn[0] + 4 * tfn[1] + tfn[2]) / 6.0;
+        }
+    }
+
+    /**
+     * Número de issues que contribuem para a utilidade.
+     */
+    public int getIssueCount() {
+        return names.length;
+    }
+
+    /**
+     * Utilidade agregada do lance (0-1), igual a
+     * {@link EvaluationService#calculateUtility(String, Bid, Map, Map, double)} com os mesmos parâmetros.
+     */
+    public double evaluate(Bid bid) {
+        if (bid == null) return 0.0;
+        List<NegotiationIssue> issues = bid.getIssues();
+        if (issues == null) return 0.0;
+
+        int profile = profileOf(bid.getProductBundle());
+        double[] bidMins = profileMins[profile];
+        double[] bidMaxs = profileMaxs[profile];
+        double totalUtility = 0.0;
+        for (int j = 0, size = issues.size(); j < size; j++) {
+            NegotiationIssue issue = issues.get(j);
+            if (issue == null || issue.getName() == null) continue;
+            int i = indexOf(issue.getName(), j);
+            if (i < 0) continue;
+            totalUtility += weights[i] * issueUtility(i, issue.getValue(), bidMins, bidMaxs);
+        }
+        return Math.max(0.0, Math.min(1.0, totalUtility));
+    }
+
+    /**
+     * Colunas vazias para {@code size} lances (valores ausentes: NaN / ordinal -1),
+     * para quem já produz os dados em formato colunar.
+     */
+    public BidColumns newColumns(int size) {
+        return new BidColumns(this, size);
+    }
+
+    /**
+     * Converte uma lista de lances para o formato colunar deste perfil.
+     */
+    public BidColumns toColumns(List<Bid> bids) {
+        BidColumns columns = new BidColumns(this, bids.size());
+        boolean[] seen = new boolean[names.length];
+        List<Integer> irregularRows = new ArrayList<>();
+        for (int r = 0; r < bids.size(); r++) {
+            Bid bid = bids.get(r);
+            if (bid == null || bid.getIssues() == null) continue;
+            Arrays.fill(seen, false);
+            columns.profiles[r] = profileOf(bid.getProductBundle());
+            List<NegotiationIssue> issues = bid.getIssues();
+            for (int j = 0; j < issues.size(); j++) {
+                NegotiationIssue issue = issues.get(j);
+                if (issue == null || issue.getName() == null) continue;
+                int i = indexOf(issue.getName(), j);
+                if (i < 0) continue;
+                if (seen[i]) {
+                    // Issue repetido no mesmo lance não cabe numa coluna: avaliado lance a lance.
+                    irregularRows.add(r);
+                    break;
+                }
+                seen[i] = true;
+                Object value = issue.getValue();
+                if (kinds[i] == QUALITATIVE) {
+                    columns.qualitative[i][r] = value instanceof String ? (byte) termOrdinal((String) value) : -1;
+                } else {
+                    columns.quantitative[i][r] = value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+                }
+            }
+        }
+        columns.irregularRows = new int[irregularRows.size()];
+        columns.irregularBids = new Bid[irregularRows.size()];
+        for (int k = 0; k < irregularRows.size(); k++) {
+            columns.irregularRows[k] = irregularRows.get(k);
+            columns.irregularBids[k] = bids.get(irregularRows.get(k));
+        }
+        return columns;
+    }
+
+    /**
+     * Avalia todos os lances das colunas de uma vez, um issue por passada.
+     * Os laços internos só fazem aritmética sobre arrays primitivos; no caso
+     * neutro a risco (β = 1) não há chamadas de função e o JIT pode vetorizá-los.
+     * @param out Recebe a utilidade de cada lance (tamanho mínimo {@code columns.getSize()}).
+     */
+    public void evaluate(BidColumns columns, double[] out) {
+        if (columns.owner != this) {
+            throw new IllegalArgumentException("Columns were built for a different evaluator");
+        }
+        int n = columns.size;
+        Arrays.fill(out, 0, n, 0.0);
+        for (int i = 0; i < names.length; i++) {
+            if (kinds[i] == QUALITATIVE) {
+                accumulateQualitative(columns.qualitative[i], weights[i], out, n);
+            } else {
+                accumulateQuantitative(columns.quantitative[i], columns.profiles, i, out, n);
+            }
+        }
+        for (int r = 0; r < n; r++) {
+            out[r] = Math.max(0.0, Math.min(1.0, out[r]));
+        }
+        for (int k = 0; k < columns.irregularRows.length; k++) {
+            out[columns.irregularRows[k]] = evaluate(columns.irregularBids[k]);
+        }
+    }
+
+    private void accumulateQualitative(byte[] ordinals, double weight, double[] out, int n) {
+        double[] table = termUtilities;
+        for (int r = 0; r < n; r++) {
+            int t = ordinals[r];
+            out[r] += t < 0 ? 0.0 : weight * table[t];
+        }
+    }
+
+    /**
+     * Mesmas contas de {@link EvaluationService#quantitativeUtility}, com os ramos que
+     * dependem só do issue (tipo, intervalo, β) resolvidos fora do laço. NaN = valor ausente.
+     */
+    private void accumulateQuantitative(double[] values, int[] profiles, int i, double[] out, int n) {
+        double weight = weights[i];
+        boolean cost = kinds[i] == COST;
+        if (profileMins.length > 1) {
+            // Com intervalos por pacote, min/max vêm do perfil de cada lance.
+            for (int r = 0; r < n; r++) {
+                double x = values[r];
+                if (x != x) continue;
+                int p = profiles[r];
+                out[r] += weight * EvaluationService.quantitativeUtility(x, profileMins[p][i], profileMaxs[p][i], cost, riskBeta);
+            }
+            return;
+        }
+        double min = mins[i];
+        double max = maxs[i];
+        double range = max - min;
+        if (Math.abs(range) < 1e-9) {
+            for (int r = 0; r < n; r++) {
+                double x = values[r];
+                if (x != x) continue;
+                out[r] += weight * EvaluationService.quantitativeUtility(x, min, max, cost, riskBeta);
+            }
+            return;
+        }
+        double v_min = 0.1;
+        if (riskBeta == 1.0) {
+            for (int r = 0; r < n; r++) {
+                double x = values[r];
+                double value = Math.max(min, Math.min(max, x));
+                double ratio = cost ? (max - value) / range : (value - min) / range;
+                ratio = Math.max(0.0, Math.min(1.0, ratio));
+                double u = v_min + (1 - v_min) * ratio;
+                out[r] += x != x ? 0.0 : weight * u;
+            }
+        } else {
+            for (int r = 0; r < n; r++) {
+                double x = values[r];
+                if (x != x) continue;
+                out[r] += weight * EvaluationService.quantitativeUtility(x, min, max, cost, riskBeta);
+            }
+        }
+    }
+
+    /**
+     * Ordinal do termo linguístico (mesmas regras de normalização), ou -1 se desconhecido.
+     */
+    public int termOrdinal(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && normalize(value.charAt(start)) <= ' ') start++;
+        while (end > start && normalize(value.charAt(end - 1)) <= ' ') end--;
+        for (int t = 0; t < termUtilities.length; t++) {
+            if (matches(value, start, end, spacedTerms[t]) || matches(value, start, end, compactTerms[t])) {
+                return t;
+            }
+        }
+        // Avisa uma vez por termo (até MAX_WARNED_TERMS termos); depois devolve -1 em silêncio.
+        if (warnedTerms.size() < MAX_WARNED_TERMS && warnedTerms.add(value)) {
+            logger.warn("CompiledUtilityEvaluator Warning: Unknown linguistic term '{}' for agent type '{}'.", value, agentType);
+        }
+        return -1;
+    }
+
+    private int indexOf(String name, int position) {
+        // Caminho rápido: o issue desta posição no último lance, com a mesma grafia (String.equals é intrínseco).
+        if (position < positionHints.length) {
+            int hinted = positionHints[position];
+            if (hinted >= 0) {
+                String spelling = spellings[hinted];
+                if (spelling != null && spelling.equals(name)) return hinted;
+            }
+        }
+        for (int slot = hash(name) & (slots.length - 1); ; slot = (slot + 1) & (slots.length - 1)) {
+            int i = slots[slot];
+            if (i < 0) return -1;
+            String spelling = spellings[i];
+            if ((spelling != null && spelling.equals(name)) || names[i].equalsIgnoreCase(name)) {
+                spellings[i] = name;
+                if (position < positionHints.length) positionHints[position] = i;
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Perfil de intervalos do pacote: o do próprio pacote, se configurado, ou 0 (genérico).
+     */
+    private int profileOf(ProductBundle bundle) {
+        if (profileMins.length == 1 || bundle == null) return 0;
+        long mask = WdpInstance.toMask(bundle.getProducts());
+        for (int slot = hash(mask) & (bundleMasks.length - 1); ; slot = (slot + 1) & (bundleMasks.length - 1)) {
+            int profile = bundleProfiles[slot];
+            if (profile == 0 || bundleMasks[slot] == mask) return profile;
+        }
+    }
+
+    private static int hash(long mask) {
+        long h = mask * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Hash sem diferenciar maiúsculas, calculado sobre os caracteres (sem criar a string minúscula).
+     */
+    private static int hash(String name) {
+        int h = 0;
+        for (int c = 0; c < name.length(); c++) {
+            h = 31 * h + Character.toLowerCase(name.charAt(c));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private double issueUtility(int i, Object value, double[] bidMins, double[] bidMaxs) {
+        if (value == null) return 0.0;
+        if (kinds[i] == QUALITATIVE) {
+            return value instanceof String ? qualitativeUtility((String) value) : 0.0;
+        }
+        if (!(value instanceof Number)) return 0.0;
+        return EvaluationService.quantitativeUtility(((Number) value).doubleValue(), bidMins[i], bidMaxs[i],
+                kinds[i] == COST, riskBeta);
+    }
+
+    private double qualitativeUtility(String value) {
+        int t = termOrdinal(value);
+        return t < 0 ? 0.0 : termUtilities[t];
+    }
+
+    private static boolean matches(String value, int start, int end, char[] term) {
+        if (end - start != term.length) return false;
+        for (int c = 0; c < term.length; c++) {
+            if (normalize(value.charAt(start + c)) != term[c]) return false;
+        }
+        return true;
+    }
+
+    private static char normalize(char c) {
+        return c == '_' ? ' ' : Character.toLowerCase(c);
+    }
+
+    /**
+     * Lances em formato colunar para um perfil compilado: uma coluna {@code double[]} por
+     * issue quantitativo e uma coluna de ordinais {@code byte[]} por issue qualitativo.
+     */
+    public static final class BidColumns {
+        private final CompiledUtilityEvaluator owner;
+        private final int size;
+        private final double[][] quantitative;
+        private final byte[][] qualitative;
+        private final int[] profiles; // perfil de intervalos de cada lance (0 = genérico)
+        private int[] irregularRows = new int[0];
+        private Bid[] irregularBids = new Bid[0];
+
+        private BidColumns(CompiledUtilityEvaluator owner, int size) {
+            this.owner = owner;
+            this.size = size;
+            int k = owner.names.length;
+            this.quantitative = new double[k][];
+            this.qualitative = new byte[k][];
+            this.profiles = new int[size];
+            for (int i = 0; i < k; i++) {
+                if (owner.kinds[i] == QUALITATIVE) {
+                    qualitative[i] = new byte[size];
+                    Arrays.fill(qualitative[i], (byte) -1);
+                } else {
+                    quantitative[i] = new double[size];
+                    Arrays.fill(quantitative[i], Double.NaN);
+                }
+            }
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Informa o pacote do lance {@code row}, para usar os intervalos daquele pacote.
+         */
+        public void setBundle(int row, ProductBundle bundle) {
+            profiles[row] = owner.profileOf(bundle);
+        }
+
+        /**
+         * Coluna de um issue quantitativo (escrita direta permitida), ou null se o issue não conta.
+         */
+        public double[] quantitative(String issueName) {
+            int i = owner.indexOf(issueName, Integer.MAX_VALUE);
+            return i < 0 ? null : quantitative[i];
+        }
+
+        /**
+         * Coluna de ordinais ({@link #termOrdinal}) de um issue qualitativo, ou null se o issue não conta.
+         */
+        public byte[] qualitative(String issueName) {
+            int i = owner.indexOf(issueName, Integer.MAX_VALUE);
+            return i < 0 ? null : qualitative[i];
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package mas.logic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Curva de concessão α(1..t_max) (Eq. 5) pré-calculada para um perfil (t_max, γ, b_k).
+ * α(t) não depende do lance nem do issue, então a curva inteira é calculada uma vez e
+ * compartilhada (cache estático) entre todos os agentes com o mesmo perfil; a consulta
+ * por rodada é só um acesso a array, sem Math.pow/exp/log.
+ */
+public final class ConcessionSchedule {
+
+    private static final Map<Key, ConcessionSchedule> CACHE = new ConcurrentHashMap<>();
+
+    private final int maxRounds;
+    private final double[] rates; // rates[t], t em 1..max(t_max, 1)
+
+    private ConcessionSchedule(int maxRounds, double gamma, double discountRate) {
+        this.maxRounds = maxRounds;
+        this.rates = new double[Math.max(1, maxRounds) + 1];
+        for (int t = 1; t < rates.length; t++) {
+            rates[t] = ConcessionService.calculateConcessionRate(t, maxRounds, gamma, discountRate);
+        }
+    }
+
+    /**
+     * Curva do perfil, criada na primeira consulta e reutilizada depois.
+     * @param maxRounds    O deadline (t_max).
+     * @param gamma        O fator de concessão (γ).
+     * @param discountRate O fator de desconto (b_k).
+     */
+    public static ConcessionSchedule of(int maxRounds, double gamma, double discountRate) {
+        return CACHE.computeIfAbsent(new Key(maxRounds, gamma, discountRate),
+                k -> new ConcessionSchedule(maxRounds, gamma, discountRate));
+    }
+
+    /**
+     * Taxa de concessão α(t); rodadas fora de 1..t_max são limitadas como na Eq. 5 do serviço.
+     */
+    public double rate(int round) {
+        int t = round > maxRounds ? maxRounds : round;
+        if (t <= 0) t = 1;
+        return rates[t];
+    }
+
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    /**
+     * Chave do cache; compara γ e b_k pelos bits do double.
+     */
+    private static final class Key {
+        private final int maxRounds;
+        private final long gammaBits;
+        private final long discountBits;
+
+        Key(int maxRounds, double gamma, double discountRate) {
+            this.maxRounds = maxRounds;
+            this.gammaBits = Double.doubleToLongBits(gamma);
+            this.discountBits = Double.doubleToLongBits(discountRate);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return maxRounds == other.maxRounds && gammaBits == other.gammaBits && discountBits == other.discountBits;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = Integer.hashCode(maxRounds);
+            h = 31 * h + Long.hashCode(gammaBits);
+            return 31 * h + Long.hashCode(discountBits);
+        }
+    }
+}
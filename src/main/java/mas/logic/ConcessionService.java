@@ -30,8 +30,26 @@ public class ConcessionService {
      */
     public Bid generateCounterBid(Bid referenceBid, int currentRound, int maxRounds, double gamma,
                                   double discountRate, Map<String, IssueParameters> issueParams, String agentType) {
+        return generateCounterBid(referenceBid, currentRound, ConcessionSchedule.of(maxRounds, gamma, discountRate),
+                issueParams, agentType);
+    }
+
+    /**
+     * Gera um contra-lance usando uma curva de concessão já resolvida
+     * (agentes guardam a curva do seu perfil e evitam a consulta ao cache a cada lance).
+     *
+     * @param referenceBid O lance anterior (para saber o ProductBundle e os issues).
+     * @param currentRound A rodada atual (t).
+     * @param schedule     A curva α(t) do perfil (t_max, γ, b_k).
+     * @param issueParams  Os parâmetros (min, max) para os issues.
+     * @param agentType    "buyer" ou "seller", para a direção da concessão.
+     * @return Um novo Bid com valores de issues recalculados.
+     */
+    public Bid generateCounterBid(Bid referenceBid, int currentRound, ConcessionSchedule schedule,
+                                  Map<String, IssueParameters> issueParams, String agentType) {
 
         List<NegotiationIssue> counterIssues = new ArrayList<>();
+        double concessionRate = schedule.rate(currentRound); // α(t) é o mesmo para todos os issues
 
         for (NegotiationIssue issue : referenceBid.getIssues()) {
             String issueName = issue.getName().toLowerCase();
@@ -40,7 +58,6 @@ public class ConcessionService {
                 counterIssues.add(new NegotiationIssue(issue.getName(), issue.getValue()));
                 continue;
             }
-            double concessionRate = calculateConcessionRate(currentRound, maxRounds, gamma, discountRate);
 
             Object newValue;
             if (params.getType() == IssueType.QUALITATIVE) {
@@ -57,8 +74,9 @@ public class ConcessionService {
     /**
      * Calcula a taxa de concessão α(t) usando a Equação 5.
      * Esta implementação está CORRETA.
+     * Usada para montar as curvas de {@link ConcessionSchedule}.
      */
-    private double calculateConcessionRate(int t, int t_max, double gamma, double b_k) {
+    static double calculateConcessionRate(int t, int t_max, double gamma, double b_k) {
         if (t > t_max) t = t_max;
         if (t <= 0) t = 1;
 
@@ -3,6 +3,8 @@ package mas.logic;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Classe utilitária para carregar configurações do arquivo config.properties.
@@ -44,4 +46,30 @@ public class ConfigLoader {
     public int getInt(String key) {
         return Integer.parseInt(properties.getProperty(key));
     }
-}
\ No newline at end of file
+
+    /**
+     * Lê um inteiro opcional, devolvendo {@code defaultValue} se a chave não existir ou for inválida.
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Chaves que começam com {@code prefix}, em ordem alfabética.
+     */
+    public Set<String> keysStartingWith(String prefix) {
+        Set<String> keys = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) keys.add(key);
+        }
+        return keys;
+    }
+}
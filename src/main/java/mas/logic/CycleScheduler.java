@@ -0,0 +1,83 @@
+package mas.logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Admissão dos ciclos de demanda do CA: até {@code maxInFlight} ciclos em andamento
+ * e uma fila de espera limitada a {@code queueCapacity}. Com a fila cheia, o ciclo mais
+ * antigo da fila é descartado (a demanda mais recente prevalece).
+ * Não é thread-safe: usado só pela thread do agente.
+ */
+public class CycleScheduler<C> {
+
+    private final int maxInFlight;
+    private final int queueCapacity;
+    private final ToLongFunction<C> idOf;
+    private final Map<Long, C> inFlight = new LinkedHashMap<>();
+    private final Deque<C> queued = new ArrayDeque<>();
+
+    public CycleScheduler(int maxInFlight, int queueCapacity, ToLongFunction<C> idOf) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.idOf = idOf;
+    }
+
+    /**
+     * Inicia o ciclo se houver vaga; senão ele entra na fila.
+     * Use {@link #isInFlight} para saber se ele começou.
+     * @return O ciclo descartado da fila para abrir espaço (pode ser o próprio), ou null.
+     */
+    public C admit(C cycle) {
+        if (inFlight.size() < maxInFlight) {
+            inFlight.put(idOf.applyAsLong(cycle), cycle);
+            return null;
+        }
+        queued.add(cycle);
+        return queued.size() > queueCapacity ? queued.poll() : null;
+    }
+
+    /**
+     * Encerra o ciclo e promove os ciclos da fila que cabem nas vagas abertas.
+     * @return Os ciclos que passaram a estar em andamento, na ordem de chegada
+     *         (vazio se o ciclo já não estava em andamento).
+     */
+    public List<C> finish(long id) {
+        List<C> started = new ArrayList<>();
+        if (inFlight.remove(id) == null) return started;
+        while (inFlight.size() < maxInFlight && !queued.isEmpty()) {
+            C next = queued.poll();
+            inFlight.put(idOf.applyAsLong(next), next);
+            started.add(next);
+        }
+        return started;
+    }
+
+    public boolean isInFlight(long id) {
+        return inFlight.containsKey(id);
+    }
+
+    /** O ciclo em andamento com o id, ou null. */
+    public C get(long id) {
+        return inFlight.get(id);
+    }
+
+    /** Ciclos em andamento, na ordem de início (cópia). */
+    public Collection<C> inFlight() {
+        return new ArrayList<>(inFlight.values());
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public int queuedCount() {
+        return queued.size();
+    }
+}
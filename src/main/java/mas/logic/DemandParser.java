@@ -0,0 +1,84 @@
+package mas.logic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lê a demanda enviada ao CA pelo define-task-protocol (ex: "P1,P3" ou "P1:1500,P3:2000").
+ * "P1" conta uma unidade; "P1:1500" informa a quantidade demandada e torna a demanda
+ * multiunidade. Entradas inválidas são ignoradas (com aviso no log).
+ */
+public final class DemandParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandParser.class);
+
+    /** Produtos conhecidos: P1..P4. */
+    public static final int PRODUCT_COUNT = 4;
+
+    private DemandParser() {
+    }
+
+    /**
+     * Demanda lida: quantidade por produto e se alguma quantidade foi informada explicitamente.
+     */
+    public static final class Demand {
+        private final int[] vector;
+        private final boolean quantityAware;
+
+        Demand(int[] vector, boolean quantityAware) {
+            this.vector = vector;
+            this.quantityAware = quantityAware;
+        }
+
+        public int[] getVector() {
+            return vector;
+        }
+
+        public boolean isQuantityAware() {
+            return quantityAware;
+        }
+    }
+
+    public static Demand parse(String productList) {
+        int[] demand = new int[PRODUCT_COUNT];
+        boolean quantityAware = false;
+        for (String product : productList.split(",")) {
+            String[] parts = product.trim().split(":");
+            int quantity = 1;
+            if (parts.length == 2) {
+                try {
+                    quantity = Integer.parseInt(parts[1].trim());
+                } catch (NumberFormatException e) {
+                    logger.warn("DemandParser: Invalid quantity in '{}'", product);
+                    continue;
+                }
+                if (quantity <= 0) {
+                    logger.warn("DemandParser: Non-positive quantity in '{}'", product);
+                    continue;
+                }
+            } else if (parts.length > 2) {
+                logger.warn("DemandParser: Invalid demand entry '{}'", product);
+                continue;
+            }
+            int index = productIndex(parts[0].trim());
+            if (index < 0) {
+                logger.warn("DemandParser: Unknown product '{}'", product);
+                continue;
+            }
+            demand[index] += quantity;
+            if (parts.length == 2) quantityAware = true;
+        }
+        return new Demand(demand, quantityAware);
+    }
+
+    /** Índice (base 0) do produto "P1".."P4", ou -1. */
+    private static int productIndex(String name) {
+        if (name.length() < 2 || name.charAt(0) != 'P') return -1;
+        try {
+            int n = Integer.parseInt(name.substring(1));
+            return n >= 1 && n <= PRODUCT_COUNT ? n - 1 : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mas.models.NegotiationResult;
+
+/**
+ * Programação dinâmica do WDP sobre estados de cobertura de produtos.
+ * Os pacotes são projetados nos m produtos demandados; o estado é a máscara dos
+ * produtos já cobertos (2^m estados). Os fornecedores são processados um a um
+ * (um "estágio" por fornecedor) e em cada estágio escolhe-se no máximo um resultado
+ * daquele fornecedor. O custo é O(resultados * 2^m), independente da explosão
+ * combinatória do Branch-and-Bound quando há muitos resultados e poucos produtos.
+ */
+public class DynamicProgrammingWinnerDetermination {
+
+    /** Máximo de produtos demandados suportados (2^20 estados). */
+    public static final int MAX_PRODUCTS = 20;
+
+    /** Máximo de células (estágios x estados) guardadas para reconstruir a solução. */
+    public static final long MAX_CELLS = 1L << 22;
+
+    static final double UNREACHABLE = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Indica se a instância cabe nos limites de memória da programação dinâmica.
+     */
+    static boolean fits(int demandedProducts, int supplierCount) {
+        return demandedProducts <= MAX_PRODUCTS
+                && (long) Math.max(1, supplierCount) << demandedProducts <= MAX_CELLS;
+    }
+
+    /**
+     * Resolve o WDP.
+     * @param results Os resultados das negociações (a lista não é modificada).
+     * @param productDemand O vetor de demanda.
+     * @return A combinação ótima, ou lista vazia se nenhuma combinação satisfaz a demanda.
+     */
+    public List<NegotiationResult> solve(List<NegotiationResult> results, int[] productDemand) {
+        return solve(WdpInstance.encode(results, productDemand));
+    }
+
+    List<NegotiationResult> solve(WdpInstance inst) {
+        int m = Long.bitCount(inst.demandMask);
+        if (!fits(m, inst.supplierCount)) {
+            throw new IllegalArgumentException("Instance too large for dynamic programming: "
+                    + m + " products, " + inst.supplierCount + " suppliers");
+        }
+        int states = 1 << m;
+        int full = states - 1;
+
+        int[][] bySupplier = groupBySupplier(inst);
+        int[] projected = new int[inst.size()];
+        for (int i = 0; i < inst.size(); i++) {
+            projected[i] = project(inst.bundleMasks[i], inst.demandMask);
+        }
+
+        double[] dp = new double[states];
+        Arrays.fill(dp, UNREACHABLE);
+        dp[0] = 0.0;
+        int[][] chosenResult = new int[bySupplier.length][];
+        int[][] previousState = new int[bySupplier.length][];
+
+        for (int k = 0; k < bySupplier.length; k++) {
+            double[] next = dp.clone();
+            int[] chosen = new int[states];
+            int[] previous = new int[states];
+            Arrays.fill(chosen, -1);
+            for (int r : bySupplier[k]) {
+                relax(dp, next, chosen, previous, r, inst.utilities[r], projected[r]);
+            }
+            chosenResult[k] = chosen;
+            previousState[k] = previous;
+            dp = next;
+        }
+
+        if (dp[full] == UNREACHABLE || dp[full] <= 0.0) {
+            return new ArrayList<>();
+        }
+
+        int[] selection = new int[bySupplier.length];
+        int size = 0;
+        int state = full;
+        for (int k = bySupplier.length - 1; k >= 0; k--) {
+            int r = chosenResult[k][state];
+            if (r >= 0) {
+                selection[size++] = r;
+                state = previousState[k][state];
+            }
+        }
+        Arrays.sort(selection, 0, size);
+        return inst.toResults(selection, size);
+    }
+
+    /**
+     * Transição de um estágio para um resultado: a partir de cada estado alcançável em
+     * {@code dp}, incluir o resultado leva ao estado {@code st | projectedMask}.
+     * Só substitui quando a utilidade é estritamente maior (empates preferem não incluir).
+     */
+    static void relax(double[] dp, double[] next, int[] chosen, int[] previous,
+                      int resultId, double utility, int projectedMask) {
+        for (int st = 0; st < dp.length; st++) {
+            if (dp[st] == UNREACHABLE) continue;
+            double candidate = dp[st] + utility;
+            int target = st | projectedMask;
+            if (candidate > next[target]) {
+                next[target] = candidate;
+                chosen[target] = resultId;
+                previous[target] = st;
+            }
+        }
+    }
+
+    /**
+     * Agrupa os índices dos resultados por fornecedor, preservando a ordem da instância.
+     */
+    static int[][] groupBySupplier(WdpInstance inst) {
+        int[] counts = new int[inst.supplierCount];
+        for (int s : inst.supplierIds) counts[s]++;
+        int[][] groups = new int[inst.supplierCount][];
+        for (int s = 0; s < groups.length; s++) groups[s] = new int[counts[s]];
+        int[] fill = new int[inst.supplierCount];
+        for (int i = 0; i < inst.size(); i++) {
+            int s = inst.supplierIds[i];
+            groups[s][fill[s]++] = i;
+        }
+        return groups;
+    }
+
+    /**
+     * Projeta uma máscara de produtos nos bits demandados, compactando-os (bit j = j-ésimo produto demandado).
+     */
+    static int project(long bundleMask, long demandMask) {
+        int result = 0;
+        int bit = 0;
+        long remaining = demandMask;
+        while (remaining != 0L) {
+            long lowest = remaining & -remaining;
+            if ((bundleMask & lowest) != 0L) {
+                result |= 1 << bit;
+            }
+            remaining &= remaining - 1;
+            bit++;
+        }
+        return result;
+    }
+}
@@ -2,10 +2,13 @@ package mas.logic;
 
 import mas.models.Bid;
 import mas.models.NegotiationIssue;
+import mas.models.ProductBundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -13,13 +16,12 @@ import java.util.Map;
  * Carrega TFNs do ConfigLoader e avalia da perspectiva do 'buyer' ou 'seller'.
  * Implementa as equações de avaliação de utilidade do artigo.
  * <p>
- * TODO (Simplificação de Sinergia):
- * Este serviço implementa corretamente as FÓRMULAS (Eq. 1-4), mas não
- * implementa a LÓGICA DE SINERGIA. O artigo afirma que a sinergia é
- * modelada por "atribuir diferentes [min_k, max_k] para diferentes
- * pacotes de produtos".
- * A implementação atual usa um único conjunto de [min, max] genérico
- * (ex: 'params.price') para todos os lances, ignorando o ProductBundle.
+ * Sinergia: o artigo modela a sinergia ao "atribuir diferentes [min_k, max_k] para
+ * diferentes pacotes de produtos". Os intervalos por pacote vêm de chaves como
+ * 'params.1100.price' ({@link #loadBundleParams}) e entram no avaliador compilado,
+ * indexados pela máscara de bits do pacote; pacotes sem intervalo próprio usam os
+ * genéricos (ex: 'params.price'). {@link #calculateUtility} continua avaliando só
+ * com os parâmetros que recebe.
  */
 public class EvaluationService {
 
@@ -27,6 +29,9 @@ public class EvaluationService {
     private final Map<String, double[]> tfnMapBuyer;
     private final Map<String, double[]> tfnMapSeller;
 
+    /** Termos linguísticos com TFN no config (tfn.buyer.* / tfn.seller.*). */
+    static final String[] TFN_TERMS = {"very_poor", "poor", "medium", "good", "very_good"};
+
     public EvaluationService() {
         this.tfnMapBuyer = new HashMap<>();
         this.tfnMapSeller = new HashMap<>();
@@ -85,6 +90,98 @@ public class EvaluationService {
         return Math.max(0.0, Math.min(1.0, totalUtility));
     }
 
+    /**
+     * Pré-compila a função de utilidade de um agente para avaliações repetidas.
+     * Os issues são resolvidos para índices e os parâmetros ficam em arrays primitivos;
+     * o avaliador devolvido calcula o mesmo valor que {@link #calculateUtility} sem alocar.
+     * Se os pesos ou parâmetros mudarem, é preciso compilar de novo.
+     */
+    public CompiledUtilityEvaluator compile(String agentType, Map<String, Double> weights,
+                                            Map<String, IssueParameters> issueParams, double riskBeta) {
+        return compile(agentType, weights, issueParams, Collections.emptyMap(), riskBeta);
+    }
+
+    /**
+     * Como {@link #compile(String, Map, Map, double)}, com intervalos próprios por pacote.
+     * @param bundleParams Máscara do pacote (bit i = produto P(i+1)) -> parâmetros daquele pacote;
+     *                     issues ausentes caem nos de {@code issueParams}.
+     */
+    public CompiledUtilityEvaluator compile(String agentType, Map<String, Double> weights,
+                                            Map<String, IssueParameters> issueParams,
+                                            Map<Long, Map<String, IssueParameters>> bundleParams, double riskBeta) {
+        Map<String, double[]> tfnMap = agentType.equalsIgnoreCase("seller") ? this.tfnMapSeller : this.tfnMapBuyer;
+        return new CompiledUtilityEvaluator(agentType, weights, issueParams, bundleParams, riskBeta, tfnMap, TFN_TERMS);
+    }
+
+    /**
+     * Lê os intervalos por pacote do config: chaves '&lt;prefix&gt;&lt;pacote&gt;.&lt;issue&gt;' = "min,max",
+     * com o pacote escrito como vetor de produtos (ex: 'params.1100.price' = P1+P2).
+     * O tipo de cada issue vem de {@code genericParams}; issues sem parâmetro genérico são ignorados.
+     * @return Máscara do pacote -> parâmetros completos do pacote (os genéricos com as faixas do
+     *         pacote por cima), prontos para {@link #compile(String, Map, Map, Map, double)} e {@link #paramsFor}.
+     */
+    public Map<Long, Map<String, IssueParameters>> loadBundleParams(String prefix, Map<String, IssueParameters> genericParams) {
+        ConfigLoader config = ConfigLoader.getInstance();
+        Map<Long, Map<String, IssueParameters>> bundleParams = new HashMap<>();
+        for (String key : config.keysStartingWith(prefix)) {
+            String rest = key.substring(prefix.length());
+            int dot = rest.indexOf('.');
+            if (dot <= 0 || !rest.substring(0, dot).matches("[01]+")) continue;
+            String bundle = rest.substring(0, dot);
+            String issueName = rest.substring(dot + 1).trim().toLowerCase();
+            IssueParameters generic = genericParams.get(issueName);
+            if (generic == null || bundle.length() > WdpInstance.MAX_PRODUCTS) {
+                logger.warn("EvaluationService Warning: Ignoring bundle params '{}'.", key);
+                continue;
+            }
+            String[] parts = config.getString(key).split(",");
+            try {
+                double min = Double.parseDouble(parts[0].trim());
+                double max = Double.parseDouble(parts[1].trim());
+                long mask = Long.parseUnsignedLong(new StringBuilder(bundle).reverse().toString(), 2);
+                bundleParams.computeIfAbsent(mask, m -> new HashMap<>(genericParams))
+                        .put(issueName, new IssueParameters(min, max, generic.getType()));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                logger.error("EvaluationService Error: Invalid bundle params '{}' = '{}'.", key, config.getString(key));
+            }
+        }
+        return bundleParams;
+    }
+
+    /**
+     * Parâmetros do pacote do lance, ou os genéricos se o pacote não tem faixas próprias.
+     * Issues ausentes nos parâmetros do pacote caem nos genéricos, como no {@link #compile},
+     * para que a concessão e a avaliação usem as mesmas faixas.
+     */
+    public static Map<String, IssueParameters> paramsFor(ProductBundle bundle, Map<String, IssueParameters> genericParams,
+                                                         Map<Long, Map<String, IssueParameters>> bundleParams) {
+        if (bundle == null || bundleParams.isEmpty()) return genericParams;
+        Map<String, IssueParameters> overrides = bundleParams.get(WdpInstance.toMask(bundle.getProducts()));
+        if (overrides == null) return genericParams;
+        // Os de loadBundleParams já vêm completos.
+        if (overrides.keySet().containsAll(genericParams.keySet())) return overrides;
+        Map<String, IssueParameters> merged = new HashMap<>(genericParams);
+        merged.putAll(overrides);
+        return merged;
+    }
+
+    /**
+     * Avalia uma proposta inteira em uma passada, sobre os lances em formato colunar.
+     * @return A utilidade (0-1) de cada lance, na ordem da lista.
+     */
+    public double[] calculateUtilities(CompiledUtilityEvaluator profile, List<Bid> bids) {
+        return calculateUtilities(profile, profile.toColumns(bids));
+    }
+
+    /**
+     * Avalia lances já em formato colunar ({@link CompiledUtilityEvaluator#newColumns}).
+     */
+    public double[] calculateUtilities(CompiledUtilityEvaluator profile, CompiledUtilityEvaluator.BidColumns columns) {
+        double[] utilities = new double[columns.getSize()];
+        profile.evaluate(columns, utilities);
+        return utilities;
+    }
+
     /**
      * Normaliza a utilidade de um único issue (Qualitativo ou Quantitativo).
      */
@@ -133,20 +230,26 @@ public class EvaluationService {
      * usa parâmetros (min/max) genéricos.
      */
     private double normalizeQuantitativeUtility(double value, IssueParameters params, double riskBeta) {
-        double min = params.getMin();
-        double max = params.getMax();
+        return quantitativeUtility(value, params.getMin(), params.getMax(), params.getType() == IssueType.COST, riskBeta);
+    }
+
+    /**
+     * Eqs. 1 e 2 sobre valores primitivos; compartilhada com {@link CompiledUtilityEvaluator}
+     * para que as duas avaliações produzam exatamente o mesmo resultado.
+     */
+    static double quantitativeUtility(double value, double min, double max, boolean cost, double riskBeta) {
         double range = max - min;
 
         if (Math.abs(range) < 1e-9) {
             double v_min_boundary = 0.1;
-            if (params.getType() == IssueType.COST && value <= min) return 1.0;
-            if (params.getType() == IssueType.BENEFIT && value >= min) return 1.0;
+            if (cost && value <= min) return 1.0;
+            if (!cost && value >= min) return 1.0;
             return v_min_boundary;
         }
         double v_min = 0.1;
         value = Math.max(min, Math.min(max, value));
         double ratio;
-        if (params.getType() == IssueType.COST) {
+        if (cost) {
             ratio = (max - value) / range;
         } else {
             ratio = (value - min) / range;
@@ -213,8 +316,7 @@ public class EvaluationService {
      * Esta implementação está CORRETA.
      */
     private void loadTfnsFromConfig(ConfigLoader config, String prefix, Map<String, double[]> map) {
-        String[] terms = {"very_poor", "poor", "medium", "good", "very_good"};
-        for (String term : terms) {
+        for (String term : TFN_TERMS) {
             String key = "tfn." + prefix + "." + term;
             String value = config.getString(key);
             if (value != null && !value.isEmpty()) {
@@ -0,0 +1,139 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mas.models.NegotiationResult;
+
+/**
+ * WDP incremental para resultados que chegam um a um durante o ciclo de demanda.
+ * Mantém a tabela da programação dinâmica sobre estados de cobertura entre as chegadas:
+ * um resultado de um fornecedor novo acrescenta um estágio (O(2^m)); um segundo resultado
+ * de um fornecedor já conhecido recalcula apenas os estágios a partir do dele.
+ * A alocação ótima do que já chegou fica disponível a qualquer momento, o que permite
+ * publicar alocações provisórias sem esperar pela negociação mais lenta.
+ */
+public class IncrementalWinnerDetermination {
+
+    /** Máximo de produtos demandados (as tabelas de todos os estágios ficam em memória). */
+    public static final int MAX_PRODUCTS = 12;
+
+    private final long demandMask;
+    private final int states;
+    private final List<NegotiationResult> results = new ArrayList<>();
+    private final List<Integer> projected = new ArrayList<>();
+    private final Map<String, Integer> stageBySupplier = new HashMap<>();
+    private final List<Stage> stages = new ArrayList<>();
+    private final double[] initial;
+
+    /**
+     * Estado da DP depois de processar um fornecedor.
+     */
+    private static final class Stage {
+        final List<Integer> resultIds = new ArrayList<>();
+        double[] dp;
+        int[] chosen;
+        int[] previous;
+    }
+
+    public IncrementalWinnerDetermination(int[] productDemand) {
+        if (!supports(productDemand)) {
+            throw new IllegalArgumentException("Incremental WDP supports at most " + MAX_PRODUCTS + " demanded products");
+        }
+        this.demandMask = WdpInstance.toMask(productDemand);
+        this.states = 1 << Long.bitCount(demandMask);
+        this.initial = new double[states];
+        Arrays.fill(initial, DynamicProgrammingWinnerDetermination.UNREACHABLE);
+        initial[0] = 0.0;
+    }
+
+    /**
+     * Indica se a demanda é pequena o bastante para o modo incremental.
+     */
+    public static boolean supports(int[] productDemand) {
+        return WdpInstance.supports(productDemand)
+                && Long.bitCount(WdpInstance.toMask(productDemand)) <= MAX_PRODUCTS;
+    }
+
+    /**
+     * Incorpora um novo resultado e atualiza o ótimo.
+     */
+    public void add(NegotiationResult result) {
+        int id = results.size();
+        results.add(result);
+        projected.add(DynamicProgrammingWinnerDetermination.project(
+                WdpInstance.toMask(result.getFinalBid().getProductBundle().getProducts()), demandMask));
+
+        Integer stageIndex = stageBySupplier.get(result.getSupplierName());
+        if (stageIndex == null) {
+            stageIndex = stages.size();
+            stageBySupplier.put(result.getSupplierName(), stageIndex);
+            stages.add(new Stage());
+        }
+        stages.get(stageIndex).resultIds.add(id);
+        for (int k = stageIndex; k < stages.size(); k++) {
+            recompute(k);
+        }
+    }
+
+    private void recompute(int k) {
+        Stage stage = stages.get(k);
+        double[] dp = k == 0 ? initial : stages.get(k - 1).dp;
+        double[] next = dp.clone();
+        int[] chosen = new int[states];
+        int[] previous = new int[states];
+        Arrays.fill(chosen, -1);
+        for (int r : stage.resultIds) {
+            DynamicProgrammingWinnerDetermination.relax(dp, next, chosen, previous, r,
+                    results.get(r).getUtility(), projected.get(r));
+        }
+        stage.dp = next;
+        stage.chosen = chosen;
+        stage.previous = previous;
+    }
+
+    /**
+     * Número de resultados incorporados até agora.
+     */
+    public int getResultCount() {
+        return results.size();
+    }
+
+    /**
+     * Indica se os resultados recebidos já cobrem a demanda.
+     */
+    public boolean isFeasible() {
+        return getCurrentUtility() > 0.0;
+    }
+
+    /**
+     * Utilidade da alocação ótima atual (0 se a demanda ainda não pode ser coberta).
+     */
+    public double getCurrentUtility() {
+        if (stages.isEmpty()) return 0.0;
+        double best = stages.get(stages.size() - 1).dp[states - 1];
+        return best == DynamicProgrammingWinnerDetermination.UNREACHABLE ? 0.0 : Math.max(0.0, best);
+    }
+
+    /**
+     * Alocação ótima considerando os resultados recebidos até agora.
+     * @return A combinação ótima, ou lista vazia se a demanda ainda não pode ser coberta.
+     */
+    public List<NegotiationResult> getCurrentAllocation() {
+        List<NegotiationResult> allocation = new ArrayList<>();
+        if (!isFeasible()) return allocation;
+        int state = states - 1;
+        for (int k = stages.size() - 1; k >= 0; k--) {
+            Stage stage = stages.get(k);
+            int r = stage.chosen[state];
+            if (r >= 0) {
+                allocation.add(results.get(r));
+                state = stage.previous[state];
+            }
+        }
+        return allocation;
+    }
+}
@@ -0,0 +1,199 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mas.models.Bid;
+import mas.models.NegotiationResult;
+
+/**
+ * WDP multiunidade: a demanda é um vetor de QUANTIDADES e a soma das quantidades
+ * ofertadas ({@link Bid#getQuantities()}) pelos lances escolhidos precisa atender
+ * cada quantidade demandada (problema de cobertura multiunidade).
+ * <p>
+ * Branch-and-Bound sobre a demanda residual, com três podas:
+ * - utilidade: soma, por fornecedor, da melhor utilidade restante (sufixo pré-calculado);
+ * - capacidade: se a soma, por fornecedor, da maior quantidade restante de algum produto
+ *   não alcança a demanda residual desse produto, o nó é inviável;
+ * - completamento: com a demanda residual zerada, o melhor completamento é pegar o melhor
+ *   resultado restante de cada fornecedor livre, calculado diretamente sem ramificar.
+ */
+public class MultiUnitWinnerDetermination {
+
+    private NegotiationResult[] sorted;
+    private double[] utilities;
+    private int[] supplierIds;
+    private int[][] quantities;
+    private double[] supplierUtilitySuffix;
+    private long[][] capacitySuffix;
+    private boolean[] usedSuppliers;
+    private int[] currentSelection;
+    private int currentSize;
+    private int[] bestSelection;
+    private int bestSize;
+    private double maxUtility;
+    private long nodesExplored;
+
+    public long getNodesExplored() {
+        return nodesExplored;
+    }
+
+    /**
+     * @param results            Os resultados das negociações (a lista não é modificada).
+     * @param demandedQuantities Quantidade demandada de cada produto (ex: [1500, 0, 2500, 0]).
+     * @return A combinação ótima, ou lista vazia se nenhuma combinação atende as quantidades.
+     */
+    public List<NegotiationResult> solve(List<NegotiationResult> results, int[] demandedQuantities) {
+        List<NegotiationResult> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparingDouble(NegotiationResult::getUtility).reversed());
+        int n = ordered.size();
+
+        // Só os produtos com demanda positiva entram no estado residual.
+        int k = 0;
+        for (int d : demandedQuantities) if (d > 0) k++;
+        int[] demandedIndex = new int[k];
+        long[] residual = new long[k];
+        for (int p = 0, c = 0; p < demandedQuantities.length; p++) {
+            if (demandedQuantities[p] > 0) {
+                demandedIndex[c] = p;
+                residual[c++] = demandedQuantities[p];
+            }
+        }
+
+        sorted = ordered.toArray(new NegotiationResult[0]);
+        utilities = new double[n];
+        supplierIds = new int[n];
+        quantities = new int[n][];
+        Map<String, Integer> supplierIndex = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            utilities[i] = sorted[i].getUtility();
+            supplierIds[i] = supplierIndex.computeIfAbsent(sorted[i].getSupplierName(), name -> supplierIndex.size());
+            quantities[i] = suppliedQuantities(sorted[i].getFinalBid(), demandedIndex);
+        }
+        int supplierCount = supplierIndex.size();
+        precomputeSuffixes(n, k, supplierCount);
+
+        usedSuppliers = new boolean[supplierCount];
+        currentSelection = new int[n];
+        currentSize = 0;
+        bestSelection = new int[n];
+        bestSize = 0;
+        maxUtility = 0.0;
+        nodesExplored = 0;
+
+        branch(0, 0.0, residual);
+
+        List<NegotiationResult> combination = new ArrayList<>(bestSize);
+        for (int i = 0; i < bestSize; i++) {
+            combination.add(sorted[bestSelection[i]]);
+        }
+        return combination;
+    }
+
+    /**
+     * Quantidades ofertadas nos produtos demandados. Sem vetor de quantidades,
+     * cada produto do pacote conta como uma unidade.
+     */
+    private static int[] suppliedQuantities(Bid bid, int[] demandedIndex) {
+        int[] q = bid.getQuantities();
+        int[] products = bid.getProductBundle().getProducts();
+        int[] supplied = new int[demandedIndex.length];
+        for (int c = 0; c < demandedIndex.length; c++) {
+            int p = demandedIndex[c];
+            if (q != null) {
+                supplied[c] = p < q.length ? Math.max(0, q[p]) : 0;
+            } else {
+                supplied[c] = products != null && p < products.length && products[p] > 0 ? 1 : 0;
+            }
+        }
+        return supplied;
+    }
+
+    private void precomputeSuffixes(int n, int k, int supplierCount) {
+        supplierUtilitySuffix = new double[n + 1];
+        capacitySuffix = new long[n + 1][k];
+        double[] bestUtility = new double[supplierCount];
+        int[][] bestQuantity = new int[supplierCount][k];
+        double utilityTotal = 0.0;
+        long[] capacityTotal = new long[k];
+        for (int i = n - 1; i >= 0; i--) {
+            int s = supplierIds[i];
+            if (utilities[i] > bestUtility[s]) {
+                utilityTotal += utilities[i] - bestUtility[s];
+                bestUtility[s] = utilities[i];
+            }
+            for (int c = 0; c < k; c++) {
+                if (quantities[i][c] > bestQuantity[s][c]) {
+                    capacityTotal[c] += quantities[i][c] - bestQuantity[s][c];
+                    bestQuantity[s][c] = quantities[i][c];
+                }
+            }
+            supplierUtilitySuffix[i] = utilityTotal;
+            System.arraycopy(capacityTotal, 0, capacitySuffix[i], 0, k);
+        }
+    }
+
+    private void branch(int index, double currentUtility, long[] residual) {
+        nodesExplored++;
+        if (currentUtility + supplierUtilitySuffix[index] <= maxUtility) {
+            return;
+        }
+        boolean satisfied = true;
+        long[] capacity = capacitySuffix[index];
+        for (int c = 0; c < residual.length; c++) {
+            if (residual[c] > 0) {
+                satisfied = false;
+                if (residual[c] > capacity[c]) return;
+            }
+        }
+        if (satisfied) {
+            complete(index, currentUtility);
+            return;
+        }
+        if (index == utilities.length) {
+            return;
+        }
+
+        int supplier = supplierIds[index];
+        if (!usedSuppliers[supplier]) {
+            int[] q = quantities[index];
+            long[] nextResidual = residual.clone();
+            for (int c = 0; c < nextResidual.length; c++) {
+                nextResidual[c] -= q[c];
+            }
+            usedSuppliers[supplier] = true;
+            currentSelection[currentSize++] = index;
+            branch(index + 1, currentUtility + utilities[index], nextResidual);
+            currentSize--;
+            usedSuppliers[supplier] = false;
+        }
+        branch(index + 1, currentUtility, residual);
+    }
+
+    /**
+     * Demanda atendida: acrescenta o melhor resultado restante de cada fornecedor livre
+     * (os resultados estão em ordem decrescente de utilidade, então é o primeiro de cada um).
+     */
+    private void complete(int index, double currentUtility) {
+        int size = currentSize;
+        double utility = currentUtility;
+        boolean[] taken = usedSuppliers.clone();
+        int[] selection = currentSelection.clone();
+        for (int i = index; i < utilities.length; i++) {
+            int s = supplierIds[i];
+            if (!taken[s] && utilities[i] > 0) {
+                taken[s] = true;
+                selection[size++] = i;
+                utility += utilities[i];
+            }
+        }
+        if (utility > maxUtility) {
+            maxUtility = utility;
+            System.arraycopy(selection, 0, bestSelection, 0, size);
+            bestSize = size;
+        }
+    }
+}
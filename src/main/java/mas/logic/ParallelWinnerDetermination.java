@@ -0,0 +1,181 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+import mas.models.NegotiationResult;
+
+/**
+ * Branch-and-Bound paralelo do WDP usando fork/join.
+ * Os primeiros níveis da árvore (decisões sobre os resultados de maior utilidade)
+ * viram tarefas independentes; abaixo de {@code splitDepth} cada tarefa segue em
+ * profundidade de forma sequencial. A melhor solução (incumbente) é compartilhada
+ * entre as tarefas por uma referência atômica, de modo que uma solução encontrada
+ * em uma thread poda imediatamente as demais.
+ */
+public class ParallelWinnerDetermination {
+
+    /** Profundidade padrão de divisão: até 2^6 tarefas. */
+    public static final int DEFAULT_SPLIT_DEPTH = 6;
+
+    private final ForkJoinPool pool;
+    private final List<WdpBound> bounds;
+    private final int splitDepth;
+
+    private WdpInstance instance;
+    private AtomicReference<Incumbent> incumbent;
+
+    public ParallelWinnerDetermination(ForkJoinPool pool) {
+        this(pool, Arrays.asList(WdpBound.suffixSum(), WdpBound.supplierBest()), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * @param pool       O pool onde as tarefas serão executadas.
+     * @param bounds     Limitantes consultados em cada nó (compartilhados entre as threads).
+     * @param splitDepth Quantos níveis da árvore são divididos em tarefas.
+     */
+    public ParallelWinnerDetermination(ForkJoinPool pool, List<WdpBound> bounds, int splitDepth) {
+        if (bounds.isEmpty()) {
+            throw new IllegalArgumentException("At least one bound is required");
+        }
+        this.pool = pool;
+        this.bounds = new ArrayList<>(bounds);
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Resolve o WDP em paralelo.
+     * @param results Os resultados das negociações (a lista não é modificada).
+     * @param productDemand O vetor de demanda.
+     * @return A combinação ótima, ou lista vazia se nenhuma combinação satisfaz a demanda.
+     */
+    public List<NegotiationResult> solve(List<NegotiationResult> results, int[] productDemand) {
+        return solve(WdpInstance.encode(results, productDemand));
+    }
+
+    List<NegotiationResult> solve(WdpInstance inst) {
+        this.instance = inst;
+        this.incumbent = new AtomicReference<>(new Incumbent(0.0, new int[0]));
+        for (WdpBound bound : bounds) {
+            bound.prepare(inst);
+        }
+
+        long[] used = new long[(inst.supplierCount + 63) >>> 6];
+        pool.invoke(new SearchTask(0, 0.0, 0L, used, new int[inst.size()], 0));
+
+        int[] best = incumbent.get().selection;
+        return inst.toResults(best, best.length);
+    }
+
+    private boolean pruned(int index, double currentUtility, long covered, long[] used) {
+        double best = incumbent.get().utility;
+        for (int b = 0; b < bounds.size(); b++) {
+            WdpBound bound = bounds.get(b);
+            if (bound.upperBound(index, currentUtility, covered, used) <= best) {
+                bound.recordPrune();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void offer(double utility, int[] selection, int size) {
+        Incumbent current = incumbent.get();
+        if (utility <= current.utility) return;
+        Incumbent candidate = new Incumbent(utility, Arrays.copyOf(selection, size));
+        while (utility > current.utility) {
+            if (incumbent.compareAndSet(current, candidate)) return;
+            current = incumbent.get();
+        }
+    }
+
+    /**
+     * Melhor solução conhecida; imutável para poder ser trocada atomicamente.
+     */
+    private static final class Incumbent {
+        final double utility;
+        final int[] selection;
+
+        Incumbent(double utility, int[] selection) {
+            this.utility = utility;
+            this.selection = selection;
+        }
+    }
+
+    /**
+     * Nó da árvore de busca. Acima de {@code splitDepth} divide em duas subtarefas
+     * (incluir / não incluir o resultado atual); abaixo, busca sequencialmente
+     * reutilizando os próprios vetores.
+     */
+    private final class SearchTask extends RecursiveAction {
+        private final int index;
+        private final double currentUtility;
+        private final long covered;
+        private final long[] used;
+        private final int[] selection;
+        private final int size;
+
+        SearchTask(int index, double currentUtility, long covered, long[] used, int[] selection, int size) {
+            this.index = index;
+            this.currentUtility = currentUtility;
+            this.covered = covered;
+            this.used = used;
+            this.selection = selection;
+            this.size = size;
+        }
+
+        @Override
+        protected void compute() {
+            if (index >= splitDepth || index >= instance.size()) {
+                search(index, currentUtility, covered, size);
+                return;
+            }
+            if (pruned(index, currentUtility, covered, used)) {
+                return;
+            }
+
+            int supplier = instance.supplierIds[index];
+            if (WdpBound.isUsed(used, supplier)) {
+                new SearchTask(index + 1, currentUtility, covered, used, selection, size).compute();
+                return;
+            }
+            // Os vetores desta tarefa passam para o ramo "não incluir"; o ramo "incluir" recebe cópias.
+            SearchTask skip = new SearchTask(index + 1, currentUtility, covered, used, selection, size);
+            long[] includeUsed = used.clone();
+            includeUsed[supplier >>> 6] |= 1L << supplier;
+            int[] includeSelection = selection.clone();
+            includeSelection[size] = index;
+            SearchTask include = new SearchTask(index + 1, currentUtility + instance.utilities[index],
+                    covered | instance.bundleMasks[index], includeUsed, includeSelection, size + 1);
+            invokeAll(include, skip);
+        }
+
+        private void search(int idx, double utility, long cov, int count) {
+            if (pruned(idx, utility, cov, used)) {
+                return;
+            }
+            if (idx == instance.size()) {
+                long demand = instance.demandMask;
+                if ((cov & demand) == demand) {
+                    offer(utility, selection, count);
+                }
+                return;
+            }
+
+            int supplier = instance.supplierIds[idx];
+            int word = supplier >>> 6;
+            long bit = 1L << supplier;
+            if ((used[word] & bit) == 0) {
+                used[word] |= bit;
+                selection[count] = idx;
+                search(idx + 1, utility + instance.utilities[idx], cov | instance.bundleMasks[idx], count + 1);
+                used[word] &= ~bit;
+            }
+            search(idx + 1, utility, cov, count);
+        }
+    }
+}
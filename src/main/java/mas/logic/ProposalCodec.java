@@ -0,0 +1,451 @@
+package mas.logic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import mas.models.Proposal;
+import mas.models.ProductBundle;
+
+/**
+ * Codificação do conteúdo ({@link Proposal}) das mensagens de negociação.
+ * Cada codec tem um nome de linguagem, gravado no campo :language da mensagem ACL,
+ * que o receptor usa para escolher o decodificador.
+ */
+public abstract class ProposalCodec {
+
+    /** Java serialization (o mesmo formato de ACLMessage.setContentObject). */
+    public static final String JAVA_SERIALIZATION = "java-serialization";
+
+    /** Formato binário compacto versionado. */
+    public static final String COMPACT_BINARY = "mas-proposal-binary";
+
+    /**
+     * Nome da linguagem gravado na mensagem.
+     */
+    public abstract String getLanguage();
+
+    public abstract byte[] encode(Proposal proposal) throws IOException;
+
+    public abstract Proposal decode(byte[] data) throws IOException;
+
+    public static ProposalCodec javaSerialization() {
+        return new JavaSerializationCodec();
+    }
+
+    public static ProposalCodec compactBinary() {
+        return new CompactBinaryCodec();
+    }
+
+    /**
+     * Codec configurado por nome ("java" ou "compact"); nome ausente ou desconhecido usa o compacto.
+     */
+    public static ProposalCodec byName(String name) {
+        if (name != null && (name.trim().equalsIgnoreCase("java") || name.trim().equalsIgnoreCase(JAVA_SERIALIZATION))) {
+            return javaSerialization();
+        }
+        return compactBinary();
+    }
+
+    /**
+     * Codec que decodifica a linguagem informada, ou null se ela não é de nenhum codec conhecido.
+     */
+    public static ProposalCodec forLanguage(String language) {
+        if (COMPACT_BINARY.equals(language)) return compactBinary();
+        if (JAVA_SERIALIZATION.equals(language)) return javaSerialization();
+        return null;
+    }
+
+    /**
+     * Java serialization dos modelos, como antes.
+     */
+    static final class JavaSerializationCodec extends ProposalCodec {
+
+        @Override
+        public String getLanguage() {
+            return JAVA_SERIALIZATION;
+        }
+
+        @Override
+        public byte[] encode(Proposal proposal) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(proposal);
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public Proposal decode(byte[] data) throws IOException {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                Object content = in.readObject();
+                if (!(content instanceof Proposal)) {
+                    throw new IOException("Unexpected content type: " + (content == null ? "null" : content.getClass().getName()));
+                }
+                return (Proposal) content;
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Formato binário compacto, versão 1:
+     * <pre>
+     * versão(1 byte)
+     * dicionário: n, n x nome (varint tamanho + UTF-8)
+     * lances: n, e para cada lance:
+     *   produtos     (varint tamanho+1, 0 = null; elementos em varint zigzag)
+     *   quantidades  (idem)
+     *   issues       (varint tamanho+1, 0 = null; cada issue: varint 0 = issue null, 1 = nome null,
+     *                 índice no dicionário+2; seguido do valor com tag)
+     * </pre>
+     * Valores: tag 0 null, 1 Double (8 bytes), 2 Integer (varint zigzag), 3 Long (varint zigzag),
+     * 4 termo linguístico (ordinal em 1 byte), 5 String (varint tamanho + UTF-8), 6 outro objeto (Java serialization).
+     */
+    static final class CompactBinaryCodec extends ProposalCodec {
+
+        static final int VERSION = 1;
+
+        /** Termos linguísticos gerados pelo ConcessionService e usados na proposta inicial. */
+        private static final String[] TERMS = {"very poor", "poor", "medium", "good", "very good"};
+
+        private static final int TAG_NULL = 0;
+        private static final int TAG_DOUBLE = 1;
+        private static final int TAG_INT = 2;
+        private static final int TAG_LONG = 3;
+        private static final int TAG_TERM = 4;
+        private static final int TAG_STRING = 5;
+        private static final int TAG_OBJECT = 6;
+
+        @Override
+        public String getLanguage() {
+            return COMPACT_BINARY;
+        }
+
+        @Override
+        public byte[] encode(Proposal proposal) throws IOException {
+            List<Bid> bids = proposal.getBids();
+            Writer out = new Writer();
+            out.writeByte(VERSION);
+
+            Map<String, Integer> dictionary = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            if (bids != null) {
+                for (Bid bid : bids) {
+                    if (bid == null || bid.getIssues() == null) continue;
+                    for (NegotiationIssue issue : bid.getIssues()) {
+                        if (issue != null && issue.getName() != null && !dictionary.containsKey(issue.getName())) {
+                            dictionary.put(issue.getName(), names.size());
+                            names.add(issue.getName());
+                        }
+                    }
+                }
+            }
+            out.writeVarInt(names.size());
+            for (String name : names) out.writeString(name);
+
+            out.writeVarInt(bids == null ? 0 : bids.size() + 1);
+            if (bids == null) return out.toByteArray();
+            for (Bid bid : bids) {
+                if (bid == null) {
+                    out.writeByte(0);
+                    continue;
+                }
+                out.writeByte(1);
+                ProductBundle bundle = bid.getProductBundle();
+                out.writeIntArray(bundle == null ? null : bundle.getProducts());
+                out.writeByte(bundle == null ? 0 : 1);
+                out.writeIntArray(bid.getQuantities());
+                List<NegotiationIssue> issues = bid.getIssues();
+                out.writeVarInt(issues == null ? 0 : issues.size() + 1);
+                if (issues == null) continue;
+                for (NegotiationIssue issue : issues) {
+                    if (issue == null) {
+                        out.writeVarInt(0);
+                        continue;
+                    }
+                    out.writeVarInt(issue.getName() == null ? 1 : dictionary.get(issue.getName()) + 2);
+                    writeValue(out, issue.getValue());
+                }
+            }
+            return out.toByteArray();
+        }
+
+        private static void writeValue(Writer out, Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(TAG_NULL);
+            } else if (value instanceof Double) {
+                out.writeByte(TAG_DOUBLE);
+                out.writeLong(Double.doubleToRawLongBits((Double) value));
+            } else if (value instanceof Integer) {
+                out.writeByte(TAG_INT);
+                out.writeVarLong(zigZag((Integer) value));
+            } else if (value instanceof Long) {
+                out.writeByte(TAG_LONG);
+                out.writeVarLong(zigZag((Long) value));
+            } else if (value instanceof String) {
+                int ordinal = termOrdinal((String) value);
+                if (ordinal >= 0) {
+                    out.writeByte(TAG_TERM);
+                    out.writeByte(ordinal);
+                } else {
+                    out.writeByte(TAG_STRING);
+                    out.writeString((String) value);
+                }
+            } else if (value instanceof Serializable) {
+                out.writeByte(TAG_OBJECT);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                    objects.writeObject(value);
+                }
+                byte[] serialized = bytes.toByteArray();
+                out.writeVarInt(serialized.length);
+                out.writeBytes(serialized);
+            } else {
+                throw new IOException("Issue value is not serializable: " + value.getClass().getName());
+            }
+        }
+
+        private static int termOrdinal(String value) {
+            for (int t = 0; t < TERMS.length; t++) {
+                if (TERMS[t].equals(value)) return t;
+            }
+            return -1;
+        }
+
+        @Override
+        public Proposal decode(byte[] data) throws IOException {
+            Reader in = new Reader(data);
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported proposal format version: " + version);
+            }
+            String[] names = new String[in.readCount()];
+            for (int i = 0; i < names.length; i++) names[i] = in.readString();
+
+            int bidCount = in.readCount();
+            if (bidCount == 0) return new Proposal(null);
+            List<Bid> bids = new ArrayList<>(bidCount - 1);
+            for (int b = 0; b < bidCount - 1; b++) {
+                if (in.readByte() == 0) {
+                    bids.add(null);
+                    continue;
+                }
+                int[] products = in.readIntArray();
+                ProductBundle bundle = in.readByte() == 0 ? null : new ProductBundle(products);
+                int[] quantities = in.readIntArray();
+                int issueCount = in.readCount();
+                List<NegotiationIssue> issues = null;
+                if (issueCount > 0) {
+                    issues = new ArrayList<>(issueCount - 1);
+                    for (int i = 0; i < issueCount - 1; i++) {
+                        int nameIndex = in.readVarInt();
+                        if (nameIndex == 0) {
+                            issues.add(null);
+                            continue;
+                        }
+                        if (nameIndex - 2 >= names.length) throw new IOException("Malformed proposal content");
+                        String name = nameIndex == 1 ? null : names[nameIndex - 2];
+                        issues.add(new NegotiationIssue(name, readValue(in)));
+                    }
+                }
+                bids.add(new Bid(bundle, issues, quantities));
+            }
+            return new Proposal(bids);
+        }
+
+        private static Object readValue(Reader in) throws IOException {
+            int tag = in.readByte();
+            switch (tag) {
+                case TAG_NULL: return null;
+                case TAG_DOUBLE: return Double.longBitsToDouble(in.readLong());
+                case TAG_INT: return (int) unZigZag(in.readVarLong());
+                case TAG_LONG: return unZigZag(in.readVarLong());
+                case TAG_TERM:
+                    int ordinal = in.readByte();
+                    if (ordinal >= TERMS.length) throw new IOException("Unknown linguistic term ordinal: " + ordinal);
+                    return TERMS[ordinal];
+                case TAG_STRING: return in.readString();
+                case TAG_OBJECT:
+                    byte[] serialized = in.readBytes(in.readVarInt());
+                    try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+                        return objects.readObject();
+                    } catch (ClassNotFoundException e) {
+                        throw new IOException(e);
+                    }
+                default:
+                    throw new IOException("Unknown issue value tag: " + tag);
+            }
+        }
+
+        private static long zigZag(long v) {
+            return (v << 1) ^ (v >> 63);
+        }
+
+        private static long unZigZag(long v) {
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        /**
+         * Buffer de escrita com varints (7 bits por byte, bit alto = continua).
+         */
+        private static final class Writer {
+            private byte[] buf = new byte[128];
+            private int size;
+
+            private void ensure(int extra) {
+                if (size + extra > buf.length) {
+                    byte[] bigger = new byte[Math.max(buf.length * 2, size + extra)];
+                    System.arraycopy(buf, 0, bigger, 0, size);
+                    buf = bigger;
+                }
+            }
+
+            void writeByte(int b) {
+                ensure(1);
+                buf[size++] = (byte) b;
+            }
+
+            void writeBytes(byte[] bytes) {
+                ensure(bytes.length);
+                System.arraycopy(bytes, 0, buf, size, bytes.length);
+                size += bytes.length;
+            }
+
+            void writeVarInt(int v) {
+                writeVarLong(v & 0xFFFFFFFFL);
+            }
+
+            void writeVarLong(long v) {
+                ensure(10);
+                while ((v & ~0x7FL) != 0L) {
+                    buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                    v >>>= 7;
+                }
+                buf[size++] = (byte) v;
+            }
+
+            void writeLong(long v) {
+                ensure(8);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    buf[size++] = (byte) (v >>> shift);
+                }
+            }
+
+            void writeString(String s) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(utf8.length);
+                writeBytes(utf8);
+            }
+
+            void writeIntArray(int[] values) {
+                if (values == null) {
+                    writeVarInt(0);
+                    return;
+                }
+                writeVarInt(values.length + 1);
+                for (int v : values) writeVarLong(zigZag(v));
+            }
+
+            byte[] toByteArray() {
+                byte[] result = new byte[size];
+                System.arraycopy(buf, 0, result, 0, size);
+                return result;
+            }
+        }
+
+        private static final class Reader {
+            private final byte[] buf;
+            private int pos;
+
+            Reader(byte[] buf) {
+                this.buf = buf;
+            }
+
+            private void require(int n) throws IOException {
+                if (n < 0 || pos + n > buf.length) {
+                    throw new IOException("Truncated proposal content");
+                }
+            }
+
+            int readByte() throws IOException {
+                require(1);
+                return buf[pos++] & 0xFF;
+            }
+
+            byte[] readBytes(int n) throws IOException {
+                require(n);
+                byte[] bytes = new byte[n];
+                System.arraycopy(buf, pos, bytes, 0, n);
+                pos += n;
+                return bytes;
+            }
+
+            int readVarInt() throws IOException {
+                long v = readVarLong();
+                if (v < 0 || v > Integer.MAX_VALUE) throw new IOException("Malformed proposal content");
+                return (int) v;
+            }
+
+            /**
+             * Lê um número de elementos. Cada elemento ocupa ao menos um byte, então uma contagem
+             * maior que o restante da mensagem só pode vir de conteúdo truncado ou corrompido
+             * (e não deve virar uma alocação gigante).
+             */
+            int readCount() throws IOException {
+                int n = readVarInt();
+                if (n > buf.length - pos) throw new IOException("Malformed proposal content: count " + n
+                        + " exceeds the " + (buf.length - pos) + " remaining byte(s)");
+                return n;
+            }
+
+            long readVarLong() throws IOException {
+                long v = 0L;
+                for (int shift = 0; shift < 64; shift += 7) {
+                    int b = readByte();
+                    v |= (long) (b & 0x7F) << shift;
+                    if ((b & 0x80) == 0) return v;
+                }
+                throw new IOException("Malformed varint in proposal content");
+            }
+
+            long readLong() throws IOException {
+                require(8);
+                long v = 0L;
+                for (int i = 0; i < 8; i++) {
+                    v = (v << 8) | (buf[pos++] & 0xFF);
+                }
+                return v;
+            }
+
+            String readString() throws IOException {
+                int n = readVarInt();
+                require(n);
+                String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+                pos += n;
+                return s;
+            }
+
+            int[] readIntArray() throws IOException {
+                int n = readCount();
+                if (n == 0) return null;
+                int[] values = new int[n - 1];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = (int) unZigZag(readVarLong());
+                }
+                return values;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import mas.models.NegotiationResult;
+
+/**
+ * Separação dos resultados por ciclo de demanda no CA: um resultado só entra no
+ * ciclo que o originou, para que ciclos sobrepostos não misturem lances.
+ */
+public final class ResultFence {
+
+    /** Ciclo desconhecido. */
+    public static final long NO_CYCLE = -1L;
+
+    private ResultFence() {
+    }
+
+    /**
+     * Ciclo a que a mensagem pertence: o do cabeçalho (parâmetro com o id do ciclo) ou,
+     * sem ele (ou inválido), o do empréstimo do comprador.
+     * @param leaseCycleId Ciclo do empréstimo, ou {@link #NO_CYCLE} se o comprador não está emprestado.
+     * @return O id do ciclo, ou {@link #NO_CYCLE} se não há como saber.
+     */
+    public static long cycleOf(String header, long leaseCycleId) {
+        if (header != null) {
+            try {
+                return Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                // cabeçalho inválido: vale o empréstimo
+            }
+        }
+        return leaseCycleId;
+    }
+
+    /**
+     * Resultados do conteúdo (um {@link NegotiationResult} ou uma lista deles) que
+     * pertencem ao ciclo; os de outros ciclos são descartados.
+     */
+    public static List<NegotiationResult> accept(long cycleId, Object content) {
+        List<NegotiationResult> accepted = new ArrayList<>();
+        if (content instanceof NegotiationResult) {
+            add(cycleId, (NegotiationResult) content, accepted);
+        } else if (content instanceof List<?>) {
+            for (Object o : (List<?>) content) {
+                if (o instanceof NegotiationResult) add(cycleId, (NegotiationResult) o, accepted);
+            }
+        }
+        return accepted;
+    }
+
+    private static void add(long cycleId, NegotiationResult result, List<NegotiationResult> accepted) {
+        if (cycleId != NO_CYCLE && result.getCycleId() == cycleId) accepted.add(result);
+    }
+}
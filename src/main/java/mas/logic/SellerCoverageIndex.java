@@ -0,0 +1,82 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de capacidades dos vendedores: produto -> vendedores cujo pacote anunciado contém
+ * o produto. A lista de candidatos de uma demanda fica em cache pela máscara de demanda,
+ * refeita só depois de alguma mudança no índice.
+ * Não é thread-safe: usado só pela thread do agente.
+ *
+ * @param <K> Identificador do vendedor (no CA, o AID).
+ */
+public class SellerCoverageIndex<K> {
+
+    /** Vendedor -> produtos anunciados (null: não anunciou; é candidato a qualquer demanda). */
+    private final Map<K, int[]> sellers = new LinkedHashMap<>();
+    private final List<Set<K>> sellersByProduct = new ArrayList<>();
+    private final Map<Long, List<K>> candidatesByDemand = new HashMap<>();
+
+    public int size() {
+        return sellers.size();
+    }
+
+    /**
+     * Registra (ou substitui) o anúncio do vendedor.
+     * @param products Produtos anunciados (posição &gt; 0 = oferta o produto), ou null se não anunciou.
+     */
+    public void put(K seller, int[] products) {
+        remove(seller);
+        sellers.put(seller, products);
+        if (products != null) {
+            for (int p = 0; p < products.length; p++) {
+                if (products[p] <= 0) continue;
+                while (sellersByProduct.size() <= p) sellersByProduct.add(new HashSet<>());
+                sellersByProduct.get(p).add(seller);
+            }
+        }
+        candidatesByDemand.clear();
+    }
+
+    public void remove(K seller) {
+        if (!sellers.containsKey(seller)) return;
+        int[] products = sellers.remove(seller);
+        if (products != null) {
+            for (int p = 0; p < products.length && p < sellersByProduct.size(); p++) {
+                sellersByProduct.get(p).remove(seller);
+            }
+        }
+        candidatesByDemand.clear();
+    }
+
+    /**
+     * Vendedores que podem contribuir para a demanda (ofertam algum produto demandado,
+     * ou não anunciaram produtos), na ordem de registro.
+     */
+    public List<K> candidatesFor(int[] demand) {
+        long mask = 0L;
+        for (int p = 0; p < demand.length && p < Long.SIZE; p++) {
+            if (demand[p] > 0) mask |= 1L << p;
+        }
+        List<K> cached = candidatesByDemand.get(mask);
+        if (cached != null) return cached;
+
+        Set<K> matching = new HashSet<>();
+        for (int p = 0; p < demand.length && p < sellersByProduct.size(); p++) {
+            if (demand[p] > 0) matching.addAll(sellersByProduct.get(p));
+        }
+        List<K> candidates = new ArrayList<>();
+        for (Map.Entry<K, int[]> e : sellers.entrySet()) {
+            if (e.getValue() == null || matching.contains(e.getKey())) candidates.add(e.getKey());
+        }
+        candidates = List.copyOf(candidates);
+        candidatesByDemand.put(mask, candidates);
+        return candidates;
+    }
+}
@@ -0,0 +1,160 @@
+package mas.logic;
+
+/**
+ * Simplex de duas fases sobre um tableau denso, usado pelas relaxações lineares do WDP.
+ * Resolve: maximizar c·x sujeito a linhas do tipo (a·x >= b) e (a·x <= b), com x >= 0 e b >= 0.
+ * Usa a regra de Bland para evitar ciclos; os problemas resolvidos aqui são pequenos.
+ */
+final class SimplexSolver {
+
+    private static final double EPS = 1e-9;
+
+    /** Valor retornado quando o problema é inviável. */
+    static final double INFEASIBLE = Double.NEGATIVE_INFINITY;
+
+    private SimplexSolver() {
+    }
+
+    /**
+     * @param objective     Coeficientes c (tamanho n).
+     * @param geRows        Linhas do tipo a·x >= b (cada uma com tamanho n).
+     * @param geRhs         Lado direito das linhas >=.
+     * @param leRows        Linhas do tipo a·x <= b.
+     * @param leRhs         Lado direito das linhas <=.
+     * @param maxIterations Limite de pivoteamentos por fase.
+     * @return O valor ótimo, {@link #INFEASIBLE}, ou {@code Double.NaN} se o limite de iterações foi atingido.
+     */
+    static double maximize(double[] objective, double[][] geRows, double[] geRhs,
+                           double[][] leRows, double[] leRhs, int maxIterations) {
+        int n = objective.length;
+        int ge = geRows.length;
+        int le = leRows.length;
+        int m = ge + le;
+        // Colunas: x (n) | excesso das linhas >= (ge) | folga das linhas <= (le) | artificiais (ge) | RHS
+        int surplusStart = n;
+        int slackStart = surplusStart + ge;
+        int artStart = slackStart + le;
+        int rhs = artStart + ge;
+        double[][] t = new double[m + 1][rhs + 1];
+        int[] basis = new int[m];
+
+        for (int i = 0; i < ge; i++) {
+            System.arraycopy(geRows[i], 0, t[i], 0, n);
+            t[i][surplusStart + i] = -1.0;
+            t[i][artStart + i] = 1.0;
+            t[i][rhs] = geRhs[i];
+            basis[i] = artStart + i;
+        }
+        for (int k = 0; k < le; k++) {
+            int i = ge + k;
+            System.arraycopy(leRows[k], 0, t[i], 0, n);
+            t[i][slackStart + k] = 1.0;
+            t[i][rhs] = leRhs[k];
+            basis[i] = slackStart + k;
+        }
+
+        // Fase 1: maximizar -(soma das artificiais).
+        double[] obj = t[m];
+        for (int i = 0; i < ge; i++) {
+            for (int j = 0; j <= rhs; j++) {
+                if (j < artStart || j == rhs) {
+                    obj[j] -= t[i][j];
+                }
+            }
+        }
+        if (ge > 0) {
+            if (!iterate(t, basis, artStart, maxIterations)) return Double.NaN;
+            if (obj[rhs] < -EPS) return INFEASIBLE;
+            driveOutArtificials(t, basis, artStart);
+        }
+
+        // Fase 2: custos reduzidos do objetivo original na base atual.
+        for (int j = 0; j <= rhs; j++) {
+            obj[j] = 0.0;
+        }
+        for (int j = 0; j < n; j++) {
+            obj[j] = -objective[j];
+        }
+        for (int i = 0; i < m; i++) {
+            int b = basis[i];
+            double cb = b < n ? objective[b] : 0.0;
+            if (cb == 0.0) continue;
+            for (int j = 0; j <= rhs; j++) {
+                obj[j] += cb * t[i][j];
+            }
+        }
+        if (!iterate(t, basis, artStart, maxIterations)) return Double.NaN;
+        return obj[rhs];
+    }
+
+    /**
+     * Pivoteia até não haver custo reduzido negativo entre as colunas permitidas (&lt; columnLimit).
+     */
+    private static boolean iterate(double[][] t, int[] basis, int columnLimit, int maxIterations) {
+        int m = basis.length;
+        int rhs = t[0].length - 1;
+        double[] obj = t[m];
+        for (int it = 0; it < maxIterations; it++) {
+            int entering = -1;
+            for (int j = 0; j < columnLimit; j++) {
+                if (obj[j] < -EPS) {
+                    entering = j;
+                    break;
+                }
+            }
+            if (entering < 0) return true;
+
+            int leaving = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < m; i++) {
+                double a = t[i][entering];
+                if (a > EPS) {
+                    double ratio = t[i][rhs] / a;
+                    if (ratio < bestRatio - EPS || (Math.abs(ratio - bestRatio) <= EPS && basis[i] < basis[leaving])) {
+                        bestRatio = ratio;
+                        leaving = i;
+                    }
+                }
+            }
+            if (leaving < 0) {
+                // Ilimitado: não ocorre com as linhas de fornecedor, mas trata por segurança.
+                obj[rhs] = Double.POSITIVE_INFINITY;
+                return true;
+            }
+            pivot(t, basis, leaving, entering);
+        }
+        return false;
+    }
+
+    private static void driveOutArtificials(double[][] t, int[] basis, int artStart) {
+        int m = basis.length;
+        for (int i = 0; i < m; i++) {
+            if (basis[i] < artStart) continue;
+            for (int j = 0; j < artStart; j++) {
+                if (Math.abs(t[i][j]) > EPS) {
+                    pivot(t, basis, i, j);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void pivot(double[][] t, int[] basis, int row, int col) {
+        double[] pivotRow = t[row];
+        double p = pivotRow[col];
+        int width = pivotRow.length;
+        for (int j = 0; j < width; j++) {
+            pivotRow[j] /= p;
+        }
+        for (int i = 0; i < t.length; i++) {
+            if (i == row) continue;
+            double f = t[i][col];
+            if (f == 0.0) continue;
+            double[] r = t[i];
+            for (int j = 0; j < width; j++) {
+                r[j] -= f * pivotRow[j];
+            }
+        }
+        basis[row] = col;
+    }
+}
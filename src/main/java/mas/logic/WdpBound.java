@@ -0,0 +1,240 @@
+package mas.logic;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitante superior plugável para o Branch-and-Bound do WDP.
+ * Cada limitante é preparado uma vez por instância (pré-cálculos) e consultado
+ * em cada nó da árvore; o nó é podado quando o limitante não supera a melhor
+ * utilidade já encontrada. Cada limitante conta quantos nós ele podou.
+ * Depois de preparados, os limitantes podem ser consultados por várias threads.
+ */
+public abstract class WdpBound {
+
+    private final LongAdder prunedNodes = new LongAdder();
+
+    /**
+     * Nome usado em logs e relatórios de poda.
+     */
+    public abstract String getName();
+
+    /**
+     * Pré-cálculos para a instância; zera o contador de podas.
+     */
+    void prepare(WdpInstance instance) {
+        prunedNodes.reset();
+    }
+
+    /**
+     * Limitante superior da utilidade alcançável a partir do nó.
+     * @param index          Próximo resultado a ser decidido.
+     * @param currentUtility Utilidade da combinação parcial.
+     * @param covered        Máscara de produtos já cobertos.
+     * @param usedSuppliers  Vetor de bits dos fornecedores já usados.
+     * @return O limitante, ou {@code Double.NEGATIVE_INFINITY} se a demanda não pode mais ser atendida.
+     */
+    abstract double upperBound(int index, double currentUtility, long covered, long[] usedSuppliers);
+
+    void recordPrune() {
+        prunedNodes.increment();
+    }
+
+    public long getPrunedNodes() {
+        return prunedNodes.sum();
+    }
+
+    public static WdpBound suffixSum() {
+        return new SuffixSumBound();
+    }
+
+    public static WdpBound supplierBest() {
+        return new SupplierBestBound();
+    }
+
+    /**
+     * @param maxIndex A relaxação só é resolvida em nós com índice menor que este valor
+     *                 (nos níveis mais profundos o custo do simplex não compensa).
+     */
+    public static WdpBound linearRelaxation(int maxIndex) {
+        return new LinearRelaxationBound(maxIndex);
+    }
+
+    static boolean isUsed(long[] usedSuppliers, int supplier) {
+        return (usedSuppliers[supplier >>> 6] & (1L << supplier)) != 0;
+    }
+
+    /**
+     * Utilidade atual mais a soma de todas as utilidades restantes (sufixo pré-calculado).
+     * Equivale à poda original, mas em O(1) por nó.
+     */
+    static class SuffixSumBound extends WdpBound {
+        private double[] suffix = new double[1];
+
+        @Override
+        public String getName() {
+            return "suffix-sum";
+        }
+
+        @Override
+        void prepare(WdpInstance instance) {
+            super.prepare(instance);
+            int n = instance.size();
+            suffix = new double[n + 1];
+            for (int i = n - 1; i >= 0; i--) {
+                suffix[i] = suffix[i + 1] + instance.utilities[i];
+            }
+        }
+
+        @Override
+        double upperBound(int index, double currentUtility, long covered, long[] usedSuppliers) {
+            return currentUtility + suffix[index];
+        }
+    }
+
+    /**
+     * Cada fornecedor contribui com no máximo um resultado: soma, por fornecedor,
+     * a melhor utilidade restante a partir do índice. Fornecedores já usados são
+     * contados mesmo assim (o limitante continua válido e fica O(1) por nó).
+     */
+    static class SupplierBestBound extends WdpBound {
+        private double[] supplierSuffix = new double[1];
+
+        @Override
+        public String getName() {
+            return "supplier-best";
+        }
+
+        @Override
+        void prepare(WdpInstance instance) {
+            super.prepare(instance);
+            int n = instance.size();
+            supplierSuffix = new double[n + 1];
+            double[] best = new double[instance.supplierCount];
+            double total = 0.0;
+            for (int i = n - 1; i >= 0; i--) {
+                int s = instance.supplierIds[i];
+                double u = instance.utilities[i];
+                if (u > best[s]) {
+                    total += u - best[s];
+                    best[s] = u;
+                }
+                supplierSuffix[i] = total;
+            }
+        }
+
+        @Override
+        double upperBound(int index, double currentUtility, long covered, long[] usedSuppliers) {
+            return currentUtility + supplierSuffix[index];
+        }
+    }
+
+    /**
+     * Relaxação linear do subproblema restante:
+     * maximizar Σ u_j x_j com Σ x_j &lt;= 1 por fornecedor livre, cobertura fracionária
+     * &gt;= 1 para cada produto demandado ainda não coberto e 0 &lt;= x_j.
+     * Detecta também nós em que a demanda restante não pode mais ser coberta.
+     */
+    static class LinearRelaxationBound extends WdpBound {
+        private static final int MAX_SIMPLEX_ITERATIONS = 500;
+
+        private final int maxIndex;
+        private WdpInstance instance;
+
+        LinearRelaxationBound(int maxIndex) {
+            this.maxIndex = maxIndex;
+        }
+
+        @Override
+        public String getName() {
+            return "lp-relaxation";
+        }
+
+        @Override
+        void prepare(WdpInstance instance) {
+            super.prepare(instance);
+            this.instance = instance;
+        }
+
+        @Override
+        double upperBound(int index, double currentUtility, long covered, long[] usedSuppliers) {
+            if (index >= maxIndex) {
+                return Double.POSITIVE_INFINITY;
+            }
+            int n = instance.size();
+            long uncovered = instance.demandMask & ~covered;
+
+            int[] candidates = new int[n - index];
+            int candidateCount = 0;
+            long reachable = 0L;
+            for (int j = index; j < n; j++) {
+                if (!isUsed(usedSuppliers, instance.supplierIds[j])) {
+                    candidates[candidateCount++] = j;
+                    reachable |= instance.bundleMasks[j];
+                }
+            }
+            if ((reachable & uncovered) != uncovered) {
+                return Double.NEGATIVE_INFINITY;
+            }
+
+            // Índices compactos dos fornecedores livres presentes entre os candidatos.
+            int[] supplierRow = new int[instance.supplierCount];
+            Arrays.fill(supplierRow, -1);
+            int supplierRows = 0;
+            for (int c = 0; c < candidateCount; c++) {
+                int s = instance.supplierIds[candidates[c]];
+                if (supplierRow[s] < 0) {
+                    supplierRow[s] = supplierRows++;
+                }
+            }
+
+            if (uncovered == 0L) {
+                // Sem restrições de cobertura a relaxação é integral: melhor resultado por fornecedor.
+                double[] best = new double[supplierRows];
+                for (int c = 0; c < candidateCount; c++) {
+                    int j = candidates[c];
+                    int row = supplierRow[instance.supplierIds[j]];
+                    best[row] = Math.max(best[row], instance.utilities[j]);
+                }
+                double sum = currentUtility;
+                for (double b : best) sum += b;
+                return sum;
+            }
+
+            int productRows = Long.bitCount(uncovered);
+            double[] objective = new double[candidateCount];
+            double[][] geRows = new double[productRows][candidateCount];
+            double[] geRhs = new double[productRows];
+            double[][] leRows = new double[supplierRows][candidateCount];
+            double[] leRhs = new double[supplierRows];
+            Arrays.fill(geRhs, 1.0);
+            Arrays.fill(leRhs, 1.0);
+
+            for (int c = 0; c < candidateCount; c++) {
+                int j = candidates[c];
+                objective[c] = instance.utilities[j];
+                leRows[supplierRow[instance.supplierIds[j]]][c] = 1.0;
+                long remaining = uncovered;
+                int row = 0;
+                while (remaining != 0L) {
+                    long lowest = remaining & -remaining;
+                    if ((instance.bundleMasks[j] & lowest) != 0L) {
+                        geRows[row][c] = 1.0;
+                    }
+                    remaining &= remaining - 1;
+                    row++;
+                }
+            }
+
+            double value = SimplexSolver.maximize(objective, geRows, geRhs, leRows, leRhs, MAX_SIMPLEX_ITERATIONS);
+            if (Double.isNaN(value)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            if (value == SimplexSolver.INFEASIBLE) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            // Pequena folga numérica para nunca podar uma solução ótima por arredondamento.
+            return currentUtility + value + 1e-9;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mas.models.NegotiationResult;
+
+/**
+ * Representação compacta de uma instância do WDP.
+ * Os resultados são ordenados por utilidade decrescente (mesma ordem do Branch-and-Bound
+ * original), os pacotes e a demanda viram máscaras de bits (um bit por produto) e os
+ * fornecedores viram ids inteiros densos (0..supplierCount-1).
+ */
+final class WdpInstance {
+
+    /** Número máximo de produtos representáveis em uma máscara {@code long}. */
+    static final int MAX_PRODUCTS = 64;
+
+    final NegotiationResult[] results;
+    final double[] utilities;
+    final long[] bundleMasks;
+    final int[] supplierIds;
+    final int supplierCount;
+    final long demandMask;
+
+    private WdpInstance(NegotiationResult[] results, double[] utilities, long[] bundleMasks,
+                        int[] supplierIds, int supplierCount, long demandMask) {
+        this.results = results;
+        this.utilities = utilities;
+        this.bundleMasks = bundleMasks;
+        this.supplierIds = supplierIds;
+        this.supplierCount = supplierCount;
+        this.demandMask = demandMask;
+    }
+
+    /**
+     * Indica se a demanda cabe em uma máscara de bits.
+     */
+    static boolean supports(int[] productDemand) {
+        return productDemand != null && productDemand.length <= MAX_PRODUCTS;
+    }
+
+    /**
+     * Codifica a lista de resultados e a demanda.
+     * A lista recebida não é modificada.
+     */
+    static WdpInstance encode(List<NegotiationResult> results, int[] productDemand) {
+        if (!supports(productDemand)) {
+            throw new IllegalArgumentException("Demand with more than " + MAX_PRODUCTS + " products cannot be encoded as a bitmask");
+        }
+        List<NegotiationResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(NegotiationResult::getUtility).reversed());
+
+        int n = sorted.size();
+        NegotiationResult[] resultArray = sorted.toArray(new NegotiationResult[0]);
+        double[] utilities = new double[n];
+        long[] bundleMasks = new long[n];
+        int[] supplierIds = new int[n];
+        Map<String, Integer> supplierIndex = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            NegotiationResult r = resultArray[i];
+            utilities[i] = r.getUtility();
+            bundleMasks[i] = toMask(r.getFinalBid().getProductBundle().getProducts());
+            Integer id = supplierIndex.get(r.getSupplierName());
+            if (id == null) {
+                id = supplierIndex.size();
+                supplierIndex.put(r.getSupplierName(), id);
+            }
+            supplierIds[i] = id;
+        }
+        return new WdpInstance(resultArray, utilities, bundleMasks, supplierIds, supplierIndex.size(), toMask(productDemand));
+    }
+
+    /**
+     * Converte um vetor de produtos (ex: [1, 0, 1, 0]) em máscara: bit i ligado se vector[i] > 0.
+     */
+    static long toMask(int[] vector) {
+        long mask = 0L;
+        if (vector == null) return mask;
+        int limit = Math.min(vector.length, MAX_PRODUCTS);
+        for (int i = 0; i < limit; i++) {
+            if (vector[i] > 0) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    int size() {
+        return utilities.length;
+    }
+
+    /**
+     * Converte uma seleção de índices de volta para a lista de resultados.
+     */
+    List<NegotiationResult> toResults(int[] selection, int count) {
+        List<NegotiationResult> combination = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            combination.add(results[selection[i]]);
+        }
+        return combination;
+    }
+}
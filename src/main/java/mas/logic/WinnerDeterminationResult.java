@@ -0,0 +1,58 @@
+package mas.logic;
+
+import java.util.List;
+
+import mas.models.NegotiationResult;
+
+/**
+ * Resultado de uma resolução do WDP com garantia de qualidade.
+ * Além da combinação vencedora, informa um limitante superior para a utilidade
+ * ótima, o que permite calcular o gap de otimalidade quando a busca foi
+ * interrompida antes de terminar.
+ */
+public class WinnerDeterminationResult {
+
+    private final List<NegotiationResult> winners;
+    private final double totalUtility;
+    private final double upperBound;
+    private final boolean optimal;
+    private final long nodesExplored;
+
+    public WinnerDeterminationResult(List<NegotiationResult> winners, double totalUtility, double upperBound,
+                                     boolean optimal, long nodesExplored) {
+        this.winners = winners;
+        this.totalUtility = totalUtility;
+        this.upperBound = optimal ? totalUtility : Math.max(totalUtility, upperBound);
+        this.optimal = optimal;
+        this.nodesExplored = nodesExplored;
+    }
+
+    /**
+     * Resultado de uma busca exata (gap zero).
+     */
+    public static WinnerDeterminationResult optimal(List<NegotiationResult> winners) {
+        double total = winners.stream().mapToDouble(NegotiationResult::getUtility).sum();
+        return new WinnerDeterminationResult(winners, total, total, true, 0);
+    }
+
+    public List<NegotiationResult> getWinners() { return winners; }
+    public double getTotalUtility() { return totalUtility; }
+    public double getUpperBound() { return upperBound; }
+    public boolean isOptimal() { return optimal; }
+    public long getNodesExplored() { return nodesExplored; }
+
+    /**
+     * Gap relativo (limitante - utilidade) / limitante, entre 0 e 1.
+     */
+    public double getOptimalityGap() {
+        if (optimal || upperBound <= 0.0) return 0.0;
+        if (Double.isInfinite(upperBound)) return 1.0;
+        return (upperBound - totalUtility) / upperBound;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WDP result: %d winner(s), utility %.3f, bound %.3f, gap %.2f%%%s",
+                winners.size(), totalUtility, upperBound, getOptimalityGap() * 100, optimal ? " (optimal)" : "");
+    }
+}
@@ -1,19 +1,92 @@
 package mas.logic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import mas.models.NegotiationResult;
 
 public class WinnerDeterminationService {
 
+    /**
+     * Estratégia usada por {@link #solveWDPWithBranchAndBound(List, int[])}.
+     * LIST: implementação original sobre listas e conjuntos.
+     * BITMASK: mesma busca com pacotes, demanda e fornecedores codificados em bits.
+     * PARALLEL: busca BITMASK dividida em tarefas fork/join.
+     * DYNAMIC_PROGRAMMING: programação dinâmica sobre estados de cobertura (poucos produtos).
+     * AUTO: escolhe entre as anteriores pelo número de produtos e de resultados.
+     * MULTI_UNIT: a demanda é lida como quantidades e precisa ser atendida pelas
+     * quantidades dos lances (nunca escolhido pelo AUTO).
+     */
+    public enum SolverMode {
+        LIST,
+        BITMASK,
+        PARALLEL,
+        DYNAMIC_PROGRAMMING,
+        AUTO,
+        MULTI_UNIT
+    }
+
+    /** A partir deste número de resultados o modo AUTO usa a busca paralela. */
+    static final int PARALLEL_THRESHOLD = 24;
+
+    private SolverMode solverMode;
+    private List<WdpBound> bounds = Arrays.asList(WdpBound.suffixSum(), WdpBound.supplierBest());
+    private long lastNodesExplored;
+    private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
     private List<NegotiationResult> bestCombination;
     private double maxUtility;
     private int[] productDemand;
 
+    public WinnerDeterminationService() {
+        this(SolverMode.LIST);
+    }
+
+    public WinnerDeterminationService(SolverMode solverMode) {
+        this.solverMode = solverMode;
+    }
+
+    public SolverMode getSolverMode() {
+        return solverMode;
+    }
+
+    public void setSolverMode(SolverMode solverMode) {
+        this.solverMode = solverMode;
+    }
+
+    /**
+     * Define os limitantes usados pelo modo BITMASK (consultados em ordem em cada nó).
+     */
+    public void setBounds(WdpBound... bounds) {
+        this.bounds = Arrays.asList(bounds);
+    }
+
+    /**
+     * Limitantes do modo BITMASK; cada um expõe quantos nós podou na última resolução.
+     */
+    public List<WdpBound> getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Define o pool usado pelo modo PARALLEL (padrão: {@link ForkJoinPool#commonPool()}).
+     */
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Nós visitados na última resolução (BITMASK, MULTI_UNIT ou anytime);
+     * 0 se ela usou um método sem contagem (LIST, DYNAMIC_PROGRAMMING, PARALLEL).
+     */
+    public long getLastNodesExplored() {
+        return lastNodesExplored;
+    }
+
     /**
      * Resolve o Problema de Determinação do Vencedor (WDP) usando Branch-and-Bound.
      * Encontra a combinação de lances que maximiza a utilidade total, sujeita às restrições.
@@ -21,7 +94,29 @@ public class WinnerDeterminationService {
      * @param productDemand Um array indicando os produtos requeridos (ex: [1, 1, 0, 1]).
      * @return A lista de lances que compõem a solução ótima.
      */
-    public List<NegotiationResult> solveWDPWithBranchAndBound(List<NegotiationResult> results, int[] productDemand) {
+    public synchronized List<NegotiationResult> solveWDPWithBranchAndBound(List<NegotiationResult> results, int[] productDemand) {
+        this.lastNodesExplored = 0;
+        if (solverMode == SolverMode.MULTI_UNIT) {
+            MultiUnitWinnerDetermination solver = new MultiUnitWinnerDetermination();
+            List<NegotiationResult> combination = solver.solve(results, productDemand);
+            this.lastNodesExplored = solver.getNodesExplored();
+            return combination;
+        }
+        if (solverMode != SolverMode.LIST && WdpInstance.supports(productDemand)) {
+            WdpInstance inst = WdpInstance.encode(results, productDemand);
+            switch (resolveMode(inst)) {
+                case DYNAMIC_PROGRAMMING:
+                    return new DynamicProgrammingWinnerDetermination().solve(inst);
+                case PARALLEL:
+                    return new ParallelWinnerDetermination(forkJoinPool, bounds, ParallelWinnerDetermination.DEFAULT_SPLIT_DEPTH)
+                            .solve(inst);
+                default:
+                    BitmaskWinnerDetermination solver = new BitmaskWinnerDetermination(bounds);
+                    List<NegotiationResult> combination = solver.solve(inst);
+                    this.lastNodesExplored = solver.getNodesExplored();
+                    return combination;
+            }
+        }
         this.bestCombination = new ArrayList<>();
         this.maxUtility = 0.0;
         this.productDemand = productDemand;
@@ -31,6 +126,58 @@ public class WinnerDeterminationService {
         return this.bestCombination;
     }
 
+    /**
+     * Modo anytime: semeia a busca com uma heurística gulosa e melhora a solução
+     * com Branch-and-Bound até o fim do orçamento de tempo.
+     * @param results A lista de todos os lances finais bem-sucedidos (não é modificada).
+     * @param productDemand O vetor de demanda.
+     * @param budgetMillis O tempo máximo de busca.
+     * @return A melhor combinação encontrada, com limitante superior e gap de otimalidade.
+     */
+    public synchronized WinnerDeterminationResult solveAnytime(List<NegotiationResult> results, int[] productDemand,
+                                                               long budgetMillis) {
+        this.lastNodesExplored = 0;
+        if (solverMode == SolverMode.MULTI_UNIT || !WdpInstance.supports(productDemand)) {
+            return WinnerDeterminationResult.optimal(solveWDPWithBranchAndBound(new ArrayList<>(results), productDemand));
+        }
+        if (resolveMode(WdpInstance.encode(results, productDemand)) == SolverMode.DYNAMIC_PROGRAMMING) {
+            // A programação dinâmica já é exata e rápida nessas instâncias: não precisa de prazo.
+            return WinnerDeterminationResult.optimal(new DynamicProgrammingWinnerDetermination().solve(results, productDemand));
+        }
+        WinnerDeterminationResult result = new AnytimeWinnerDetermination(bounds).solve(results, productDemand, budgetMillis);
+        this.lastNodesExplored = result.getNodesExplored();
+        return result;
+    }
+
+    /**
+     * Modo efetivo para a instância: resolve AUTO e recua para BITMASK quando
+     * a programação dinâmica não cabe na memória.
+     */
+    private SolverMode resolveMode(WdpInstance inst) {
+        int demandedProducts = Long.bitCount(inst.demandMask);
+        boolean dpFits = DynamicProgrammingWinnerDetermination.fits(demandedProducts, inst.supplierCount);
+        if (solverMode == SolverMode.AUTO) {
+            return selectMode(inst.size(), demandedProducts, dpFits);
+        }
+        if (solverMode == SolverMode.DYNAMIC_PROGRAMMING && !dpFits) {
+            return SolverMode.BITMASK;
+        }
+        return solverMode;
+    }
+
+    /**
+     * Seleção automática: a programação dinâmica custa ~n * 2^m e a busca até ~2^n,
+     * então a DP é usada quando m + log2(n) &lt; n e a tabela cabe na memória.
+     * Caso contrário, instâncias grandes vão para a busca paralela.
+     */
+    static SolverMode selectMode(int resultCount, int demandedProducts, boolean dpFits) {
+        int log2Results = 32 - Integer.numberOfLeadingZeros(Math.max(1, resultCount) - 1);
+        if (dpFits && demandedProducts + log2Results < resultCount) {
+            return SolverMode.DYNAMIC_PROGRAMMING;
+        }
+        return resultCount >= PARALLEL_THRESHOLD ? SolverMode.PARALLEL : SolverMode.BITMASK;
+    }
+
     /**
      * Função recursiva que implementa a lógica de Branch-and-Bound.
      * @param allResults Lista de todos os resultados (ordenados).
@@ -85,7 +232,7 @@ public class WinnerDeterminationService {
         }
 
         for (int i = 0; i < this.productDemand.length; i++) {
-            if (this.productDemand[i] == 1 && coveredDemand[i] == 0) {
+            if (this.productDemand[i] > 0 && coveredDemand[i] == 0) {
                 return false; // Se um produto requerido não foi coberto, a demanda não é satisfeita.
             }
         }
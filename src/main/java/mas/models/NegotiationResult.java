@@ -8,16 +8,26 @@ public class NegotiationResult implements Serializable {
     private final Bid finalBid;
     private final double utility;
     private final String supplierName;
+    private final long cycleId;
 
     public NegotiationResult(Bid finalBid, double utility, String supplierName) {
+        this(finalBid, utility, supplierName, -1);
+    }
+
+    /**
+     * @param cycleId Id do ciclo de demanda que originou a negociação (-1 se desconhecido).
+     */
+    public NegotiationResult(Bid finalBid, double utility, String supplierName, long cycleId) {
         this.finalBid = finalBid;
         this.utility = utility;
         this.supplierName = supplierName;
+        this.cycleId = cycleId;
     }
 
     public Bid getFinalBid() { return finalBid; }
     public double getUtility() { return utility; }
     public String getSupplierName() { return supplierName; }
+    public long getCycleId() { return cycleId; }
 
     @Override
     public String toString() {
@@ -0,0 +1,43 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+import mas.models.ProductBundle;
+
+public class BundleGeneratorTest {
+
+    @Test
+    void testDefaultsMatchOriginalBundles() {
+        // Sem sinergias configuradas: todos os pacotes de 1 e 2 produtos (os 10 pacotes originais).
+        BundleGenerator generator = new BundleGenerator(2, 1.0, 1.0, Map.of());
+        List<String> bundles = toStrings(generator.generate(new int[]{1000, 1000, 2000, 2000}));
+        assertEquals(List.of(
+                "[1, 0, 0, 0]", "[0, 1, 0, 0]", "[0, 0, 1, 0]", "[0, 0, 0, 1]",
+                "[1, 1, 0, 0]", "[1, 0, 1, 0]", "[1, 0, 0, 1]", "[0, 1, 1, 0]", "[0, 1, 0, 1]", "[0, 0, 1, 1]"),
+                bundles);
+    }
+
+    @Test
+    void testOnlyDemandedProductsAndPrunedPairs() {
+        // P1-P3 com sinergia baixa: nenhum pacote contém os dois, nem os maiores que os estenderiam.
+        BundleGenerator generator = new BundleGenerator(3, 1.0, 1.0, Map.of(BundleGenerator.pairKey(0, 2), 0.5));
+        List<String> bundles = toStrings(generator.generate(new int[]{1, 0, 1, 1, 1}));
+        assertEquals(List.of(
+                "[1, 0, 0, 0, 0]", "[0, 0, 1, 0, 0]", "[0, 0, 0, 1, 0]", "[0, 0, 0, 0, 1]",
+                "[1, 0, 0, 1, 0]", "[1, 0, 0, 0, 1]", "[0, 0, 1, 1, 0]", "[0, 0, 1, 0, 1]", "[0, 0, 0, 1, 1]",
+                "[1, 0, 0, 1, 1]", "[0, 0, 1, 1, 1]"),
+                bundles);
+    }
+
+    private static List<String> toStrings(List<ProductBundle> bundles) {
+        List<String> out = new ArrayList<>();
+        for (ProductBundle b : bundles) out.add(Arrays.toString(b.getProducts()));
+        return out;
+    }
+}
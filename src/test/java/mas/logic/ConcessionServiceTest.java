@@ -0,0 +1,55 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+
+import mas.logic.EvaluationService.IssueParameters;
+import mas.logic.EvaluationService.IssueType;
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import mas.models.ProductBundle;
+
+public class ConcessionServiceTest {
+
+    @Test
+    void testScheduleMatchesEquation5() {
+        for (int maxRounds : new int[]{1, 2, 10}) {
+            for (double gamma : new double[]{0.3, 1.0, 2.5}) {
+                ConcessionSchedule schedule = ConcessionSchedule.of(maxRounds, gamma, 0.1);
+                assertSame(schedule, ConcessionSchedule.of(maxRounds, gamma, 0.1));
+                for (int t = -1; t <= maxRounds + 2; t++) {
+                    assertEquals(ConcessionService.calculateConcessionRate(t, maxRounds, gamma, 0.1),
+                            schedule.rate(t), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCounterBidWithScheduleMatchesParameters() {
+        ConcessionService service = new ConcessionService();
+        Map<String, IssueParameters> issueParams = new HashMap<>();
+        issueParams.put("price", new IssueParameters(50.0, 60.0, IssueType.COST));
+        issueParams.put("quality", new IssueParameters(0, 1, IssueType.QUALITATIVE));
+        List<NegotiationIssue> issues = new ArrayList<>();
+        issues.add(new NegotiationIssue("Price", 55.0));
+        issues.add(new NegotiationIssue("Quality", "good"));
+        issues.add(new NegotiationIssue("Warranty", 12));
+        Bid reference = new Bid(new ProductBundle(new int[]{1, 0}), issues, new int[]{100, 0});
+
+        ConcessionSchedule schedule = ConcessionSchedule.of(10, 0.5, 0.1);
+        for (int round = 1; round <= 10; round++) {
+            Bid expected = service.generateCounterBid(reference, round, 10, 0.5, 0.1, issueParams, "seller");
+            Bid actual = service.generateCounterBid(reference, round, schedule, issueParams, "seller");
+            for (int i = 0; i < issues.size(); i++) {
+                assertEquals(expected.getIssues().get(i).getValue(), actual.getIssues().get(i).getValue());
+            }
+        }
+    }
+}
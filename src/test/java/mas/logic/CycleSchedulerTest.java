@@ -0,0 +1,57 @@
+package mas.logic;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class CycleSchedulerTest {
+
+    private static CycleScheduler<Long> scheduler(int maxInFlight, int queueCapacity) {
+        return new CycleScheduler<>(maxInFlight, queueCapacity, id -> id);
+    }
+
+    @Test
+    void testAdmit_StartsUntilFullThenQueues() {
+        CycleScheduler<Long> cycles = scheduler(2, 2);
+        assertNull(cycles.admit(1L));
+        assertNull(cycles.admit(2L));
+        assertNull(cycles.admit(3L));
+        assertTrue(cycles.isInFlight(1L) && cycles.isInFlight(2L));
+        assertFalse(cycles.isInFlight(3L));
+        assertEquals(2, cycles.inFlightCount());
+        assertEquals(1, cycles.queuedCount());
+    }
+
+    @Test
+    void testAdmit_FullQueueDropsOldestQueued() {
+        CycleScheduler<Long> cycles = scheduler(1, 2);
+        cycles.admit(1L);
+        cycles.admit(2L);
+        cycles.admit(3L);
+        assertEquals(2L, cycles.admit(4L));
+        assertEquals(List.of(3L), cycles.finish(1L));
+        assertEquals(List.of(4L), cycles.finish(3L));
+
+        // Sem fila: a demanda que não cabe é descartada na hora.
+        CycleScheduler<Long> noQueue = scheduler(1, 0);
+        noQueue.admit(1L);
+        assertEquals(2L, noQueue.admit(2L));
+        assertEquals(0, noQueue.queuedCount());
+    }
+
+    @Test
+    void testFinish_PromotesInArrivalOrderAndIgnoresUnknownCycles() {
+        CycleScheduler<Long> cycles = scheduler(2, 5);
+        for (long id = 1; id <= 5; id++) cycles.admit(id);
+        assertEquals(List.of(), cycles.finish(42L));
+        assertEquals(List.of(3L), cycles.finish(2L));
+        assertEquals(List.of(4L), cycles.finish(1L));
+        assertEquals(List.of(), cycles.finish(1L));
+        assertEquals(2, cycles.inFlightCount());
+        assertEquals(List.of(3L, 4L), List.copyOf(cycles.inFlight()));
+    }
+}
@@ -0,0 +1,31 @@
+package mas.logic;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class DemandParserTest {
+
+    @Test
+    void testParse_UnitDemand() {
+        DemandParser.Demand demand = DemandParser.parse("P1, P3");
+        assertArrayEquals(new int[]{1, 0, 1, 0}, demand.getVector());
+        assertFalse(demand.isQuantityAware());
+    }
+
+    @Test
+    void testParse_QuantitiesAreSummedAndMarkTheDemand() {
+        DemandParser.Demand demand = DemandParser.parse("P1:1500,P3:2000,P1");
+        assertArrayEquals(new int[]{1501, 0, 2000, 0}, demand.getVector());
+        assertTrue(demand.isQuantityAware());
+    }
+
+    @Test
+    void testParse_InvalidEntriesAreSkipped() {
+        // Quantidade inválida, não positiva, produto desconhecido ou entrada malformada.
+        DemandParser.Demand demand = DemandParser.parse("P1:abc,P2:0,P3:-5,P9,X1:3,P4:1:2,,P2");
+        assertArrayEquals(new int[]{0, 1, 0, 0}, demand.getVector());
+        assertFalse(demand.isQuantityAware());
+    }
+}
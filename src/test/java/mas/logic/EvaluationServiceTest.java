@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;     
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.BeforeEach;
@@ -90,4 +91,99 @@ public class EvaluationServiceTest {
         // Total: U = 0.4*0.5623 + 0.3*0.75 + 0.15*0.254 + 0.15*0.5 = 0.56302
         assertEquals(0.56218, utility, 0.0001);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCompiledEvaluatorMatchesCalculateUtility() {
+        String[] names = {"Price", "price", "QUALITY", "Delivery", "service", "Unknown"};
+        Object[] qualitative = {"good", "Very_Good", " very poor ", "verygood", "MEDIUM", "excellent", 3.0, null};
+        Random random = new Random(3);
+        for (String agentType : new String[]{"buyer", "seller"}) {
+            for (double beta : new double[]{0.5, 1.0, 2.0, -1.0}) {
+                CompiledUtilityEvaluator evaluator = evaluationService.compile(agentType, weights, issueParams, beta);
+                assertEquals(4, evaluator.getIssueCount());
+                for (int trial = 0; trial < 200; trial++) {
+                    List<NegotiationIssue> issues = new ArrayList<>();
+                    int count = 1 + random.nextInt(6);
+                    for (int i = 0; i < count; i++) {
+                        String name = names[random.nextInt(names.length)];
+                        boolean quantitative = name.equalsIgnoreCase("price") || name.equalsIgnoreCase("delivery");
+                        Object value = quantitative
+                                ? (random.nextInt(10) == 0 ? "cheap" : (Object) (random.nextDouble() * 70.0))
+                                : qualitative[random.nextInt(qualitative.length)];
+                        issues.add(new NegotiationIssue(name, value));
+                    }
+                    Bid bid = new Bid(testBid.getProductBundle(), issues, testBid.getQuantities());
+                    assertEquals(evaluationService.calculateUtility(agentType, bid, weights, issueParams, beta),
+                            evaluator.evaluate(bid), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testBatchUtilitiesMatchPerBidEvaluation() {
+        Random random = new Random(5);
+        String[] terms = {"very poor", "poor", "medium", "good", "very good", "unknown"};
+        for (double beta : new double[]{0.5, 1.0, 2.0}) {
+            CompiledUtilityEvaluator evaluator = evaluationService.compile("buyer", weights, issueParams, beta);
+            List<Bid> bids = new ArrayList<>();
+            for (int b = 0; b < 100; b++) {
+                List<NegotiationIssue> issues = new ArrayList<>();
+                issues.add(new NegotiationIssue("Price", 45.0 + random.nextDouble() * 20.0));
+                issues.add(new NegotiationIssue("Quality", terms[random.nextInt(terms.length)]));
+                if (random.nextBoolean()) issues.add(new NegotiationIssue("Delivery", random.nextDouble() * 12.0));
+                issues.add(new NegotiationIssue("Service", terms[random.nextInt(terms.length)]));
+                if (b % 17 == 0) issues.add(new NegotiationIssue("price", 52.0)); // issue repetido
+                bids.add(new Bid(testBid.getProductBundle(), issues, testBid.getQuantities()));
+            }
+            bids.add(null);
+
+            double[] batch = evaluationService.calculateUtilities(evaluator, bids);
+            assertEquals(bids.size(), batch.length);
+            for (int b = 0; b < bids.size(); b++) {
+                assertEquals(evaluator.evaluate(bids.get(b)), batch[b], 1e-12);
+            }
+        }
+
+        // Colunas preenchidas diretamente pelo chamador.
+        CompiledUtilityEvaluator evaluator = evaluationService.compile("buyer", weights, issueParams, 1.0);
+        CompiledUtilityEvaluator.BidColumns columns = evaluator.newColumns(1);
+        columns.quantitative("price")[0] = 55.0;
+        columns.quantitative("delivery")[0] = 8.0;
+        columns.qualitative("quality")[0] = (byte) evaluator.termOrdinal("good");
+        columns.qualitative("service")[0] = (byte) evaluator.termOrdinal("medium");
+        assertEquals(0.565, evaluationService.calculateUtilities(evaluator, columns)[0], 0.0001);
+    }
+
+    @Test
+    void testCompiledEvaluator_PerBundleParams() {
+        // Pacote P1+P2 ("1100") com faixa de preço própria; demais pacotes usam a genérica.
+        Map<String, IssueParameters> pairParams = new HashMap<>(issueParams);
+        pairParams.put("price", new IssueParameters(120.0, 145.0, IssueType.COST));
+        Map<Long, Map<String, IssueParameters>> bundleParams = new HashMap<>();
+        bundleParams.put(0b0011L, Map.of("price", pairParams.get("price")));
+        CompiledUtilityEvaluator evaluator = evaluationService.compile("buyer", weights, issueParams, bundleParams, 0.5);
+
+        List<NegotiationIssue> issues = new ArrayList<>();
+        issues.add(new NegotiationIssue("Price", 130.0));
+        issues.add(new NegotiationIssue("Quality", "good"));
+        issues.add(new NegotiationIssue("Delivery", 8.0));
+        issues.add(new NegotiationIssue("Service", "medium"));
+        Bid pairBid = new Bid(new ProductBundle(new int[]{1, 1, 0, 0}), issues, new int[]{1000, 1000, 0, 0});
+
+        assertEquals(evaluationService.calculateUtility("buyer", pairBid, weights, pairParams, 0.5),
+                evaluator.evaluate(pairBid), 1e-12);
+        assertEquals(evaluationService.calculateUtility("buyer", testBid, weights, issueParams, 0.5),
+                evaluator.evaluate(testBid), 1e-12);
+
+        // A concessão usa as mesmas faixas do pacote; issues sem faixa própria caem nos genéricos.
+        assertEquals(pairParams, EvaluationService.paramsFor(pairBid.getProductBundle(), issueParams, bundleParams));
+        assertEquals(issueParams, EvaluationService.paramsFor(testBid.getProductBundle(), issueParams, bundleParams));
+
+        List<Bid> bids = List.of(pairBid, testBid, pairBid);
+        double[] batch = evaluationService.calculateUtilities(evaluator, bids);
+        for (int b = 0; b < bids.size(); b++) {
+            assertEquals(evaluator.evaluate(bids.get(b)), batch[b], 1e-12);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package mas.logic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import mas.models.Bid;
+import mas.models.NegotiationIssue;
+import mas.models.ProductBundle;
+import mas.models.Proposal;
+
+public class ProposalCodecTest {
+
+    private static Proposal sampleProposal() {
+        List<Bid> bids = new ArrayList<>();
+        for (int b = 0; b < 5; b++) {
+            List<NegotiationIssue> issues = new ArrayList<>();
+            issues.add(new NegotiationIssue("Price", 50.0 + b * 1.37));
+            issues.add(new NegotiationIssue("Quality", b % 2 == 0 ? "very good" : "poor"));
+            issues.add(new NegotiationIssue("Delivery", 18 - b));
+            issues.add(new NegotiationIssue("Service", "very_poor")); // fora do vocabulário: vai como texto
+            issues.add(new NegotiationIssue("Warranty", b == 3 ? null : (Object) (long) -b));
+            bids.add(new Bid(new ProductBundle(new int[]{1, b % 2, 1, 0}), issues, new int[]{1000, 0, 2000 + b, 0}));
+        }
+        bids.add(new Bid(null, null, null));
+        return new Proposal(bids);
+    }
+
+    private static void assertSameProposal(Proposal expected, Proposal actual) {
+        assertEquals(expected.getBids().size(), actual.getBids().size());
+        for (int b = 0; b < expected.getBids().size(); b++) {
+            Bid e = expected.getBids().get(b);
+            Bid a = actual.getBids().get(b);
+            assertArrayEquals(e.getQuantities(), a.getQuantities());
+            if (e.getProductBundle() == null) {
+                assertNull(a.getProductBundle());
+            } else {
+                assertArrayEquals(e.getProductBundle().getProducts(), a.getProductBundle().getProducts());
+            }
+            if (e.getIssues() == null) {
+                assertNull(a.getIssues());
+                continue;
+            }
+            assertEquals(e.getIssues().size(), a.getIssues().size());
+            for (int i = 0; i < e.getIssues().size(); i++) {
+                assertEquals(e.getIssues().get(i).getName(), a.getIssues().get(i).getName());
+                assertEquals(e.getIssues().get(i).getValue(), a.getIssues().get(i).getValue());
+            }
+        }
+    }
+
+    @Test
+    void testRoundTripPreservesValuesAndTypes() throws IOException {
+        Proposal proposal = sampleProposal();
+        for (ProposalCodec codec : Arrays.asList(ProposalCodec.compactBinary(), ProposalCodec.javaSerialization())) {
+            Proposal decoded = codec.decode(codec.encode(proposal));
+            assertSameProposal(proposal, decoded);
+            assertEquals(codec.getLanguage(), ProposalCodec.forLanguage(codec.getLanguage()).getLanguage());
+        }
+    }
+
+    @Test
+    void testCompactFormatIsSmallerAndVersioned() throws IOException {
+        Proposal proposal = sampleProposal();
+        byte[] compact = ProposalCodec.compactBinary().encode(proposal);
+        byte[] java = ProposalCodec.javaSerialization().encode(proposal);
+        assertTrue(compact.length * 4 < java.length, compact.length + " vs " + java.length);
+
+        compact[0] = 99;
+        assertThrows(IOException.class, () -> ProposalCodec.compactBinary().decode(compact));
+        assertThrows(IOException.class, () -> ProposalCodec.compactBinary().decode(Arrays.copyOf(java, 10)));
+    }
+
+    @Test
+    void testMalformedCountsFailWithIOException() throws IOException {
+        ProposalCodec codec = ProposalCodec.compactBinary();
+        byte version = codec.encode(sampleProposal())[0];
+        // Versão + contagem de nomes enorme (varint de 2^31 - 1) sem os bytes correspondentes.
+        byte[] hugeCount = {version, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        assertThrows(IOException.class, () -> codec.decode(hugeCount));
+        // Varint de 64 bits (valor negativo como long).
+        byte[] negative = {version, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01};
+        assertThrows(IOException.class, () -> codec.decode(negative));
+        // Nenhum nome e 1000 lances anunciados em 3 bytes.
+        byte[] manyBids = {version, 0x00, (byte) 0xE9, 0x07};
+        assertThrows(IOException.class, () -> codec.decode(manyBids));
+
+        // Qualquer truncamento de uma mensagem válida falha com IOException.
+        byte[] valid = codec.encode(sampleProposal());
+        for (int length = 1; length < valid.length; length++) {
+            byte[] truncated = Arrays.copyOf(valid, length);
+            assertThrows(IOException.class, () -> codec.decode(truncated), "length " + length);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import mas.models.Bid;
+import mas.models.NegotiationResult;
+import mas.models.ProductBundle;
+
+public class ResultFenceTest {
+
+    private static NegotiationResult result(String supplier, long cycleId) {
+        Bid bid = new Bid(new ProductBundle(new int[]{1, 0}), new ArrayList<>(), new int[]{1, 0});
+        return new NegotiationResult(bid, 0.5, supplier, cycleId);
+    }
+
+    @Test
+    void testCycleOf_HeaderThenLease() {
+        assertEquals(7L, ResultFence.cycleOf("7", 3L));
+        assertEquals(3L, ResultFence.cycleOf(null, 3L));
+        assertEquals(3L, ResultFence.cycleOf("not-a-number", 3L));
+        // Sem cabeçalho e sem empréstimo não há ciclo (nada de "ciclo mais recente").
+        assertEquals(ResultFence.NO_CYCLE, ResultFence.cycleOf(null, ResultFence.NO_CYCLE));
+    }
+
+    @Test
+    void testAccept_KeepsOnlyResultsOfTheCycle() {
+        NegotiationResult current = result("s1", 2L);
+        NegotiationResult stale = result("s2", 1L);
+        NegotiationResult untagged = result("s3", ResultFence.NO_CYCLE);
+
+        assertEquals(List.of(current), ResultFence.accept(2L, current));
+        assertTrue(ResultFence.accept(2L, stale).isEmpty());
+        assertEquals(List.of(current), ResultFence.accept(2L, new ArrayList<>(List.of(stale, current, untagged))));
+        assertTrue(ResultFence.accept(ResultFence.NO_CYCLE, untagged).isEmpty());
+        assertTrue(ResultFence.accept(2L, "NegotiationFailed").isEmpty());
+    }
+}
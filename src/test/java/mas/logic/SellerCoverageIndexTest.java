@@ -0,0 +1,40 @@
+package mas.logic;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+
+public class SellerCoverageIndexTest {
+
+    @Test
+    void testCandidates_OnlySellersCoveringTheDemand() {
+        SellerCoverageIndex<String> index = new SellerCoverageIndex<>();
+        index.put("s1", new int[]{1, 1, 0, 0});
+        index.put("s2", new int[]{0, 0, 1, 1});
+        index.put("s3", new int[]{1, 0, 1, 0});
+        index.put("legacy", null); // sem anúncio: candidato a qualquer demanda
+
+        assertEquals(List.of("s1", "legacy"), index.candidatesFor(new int[]{0, 1, 0, 0}));
+        assertEquals(List.of("s2", "s3", "legacy"), index.candidatesFor(new int[]{0, 0, 1500, 0}));
+        assertEquals(List.of("s1", "s2", "s3", "legacy"), index.candidatesFor(new int[]{1, 0, 0, 1}));
+        assertEquals(List.of("legacy"), index.candidatesFor(new int[]{0, 0, 0, 0, 1}));
+    }
+
+    @Test
+    void testCandidates_CachedUntilTheIndexChanges() {
+        SellerCoverageIndex<String> index = new SellerCoverageIndex<>();
+        index.put("s1", new int[]{1, 1, 0, 0});
+        List<String> first = index.candidatesFor(new int[]{1, 0, 0, 0});
+        assertSame(first, index.candidatesFor(new int[]{2000, 0, 0, 0}));
+
+        // Novo anúncio substitui o anterior; saída do DF remove.
+        index.put("s1", new int[]{0, 0, 1, 0});
+        index.put("s2", new int[]{1, 0, 0, 0});
+        assertEquals(List.of("s2"), index.candidatesFor(new int[]{1, 0, 0, 0}));
+        index.remove("s2");
+        assertEquals(List.of(), index.candidatesFor(new int[]{1, 0, 0, 0}));
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,383 @@
+package mas.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import mas.logic.WinnerDeterminationService.SolverMode;
+import mas.models.Bid;
+import mas.models.NegotiationResult;
+import mas.models.ProductBundle;
+
+public class WinnerDeterminationServiceTest {
+
+    private static NegotiationResult result(String supplier, double utility, int... products) {
+        Bid bid = new Bid(new ProductBundle(products), new ArrayList<>(), products.clone());
+        return new NegotiationResult(bid, utility, supplier);
+    }
+
+    private static double total(List<NegotiationResult> combination) {
+        return combination.stream().mapToDouble(NegotiationResult::getUtility).sum();
+    }
+
+    /**
+     * Gera uma instância aleatória: cada fornecedor devolve 1 ou 2 resultados
+     * com pacotes aleatórios sobre {@code products} produtos.
+     */
+    private static List<NegotiationResult> randomResults(Random rnd, int suppliers, int products) {
+        List<NegotiationResult> results = new ArrayList<>();
+        for (int s = 0; s < suppliers; s++) {
+            int count = 1 + rnd.nextInt(2);
+            for (int k = 0; k < count; k++) {
+                int[] bundle = new int[products];
+                for (int p = 0; p < products; p++) {
+                    bundle[p] = rnd.nextInt(3) == 0 ? 1 : 0;
+                }
+                results.add(result("s" + s, 0.05 + rnd.nextDouble() * 0.9, bundle));
+            }
+        }
+        return results;
+    }
+
+    private static int[] randomDemand(Random rnd, int products) {
+        int[] demand = new int[products];
+        for (int p = 0; p < products; p++) {
+            demand[p] = rnd.nextBoolean() ? 1 : 0;
+        }
+        return demand;
+    }
+
+    @Test
+    void testSolve_PicksBestFeasibleCombination() {
+        List<NegotiationResult> results = new ArrayList<>();
+        results.add(result("s1", 0.6, 1, 1, 0, 0));
+        results.add(result("s2", 0.5, 0, 0, 1, 1));
+        results.add(result("s3", 0.4, 1, 0, 1, 0));
+        results.add(result("s3", 0.9, 1, 0, 0, 0));
+
+        for (SolverMode mode : SolverMode.values()) {
+            WinnerDeterminationService wds = new WinnerDeterminationService(mode);
+            List<NegotiationResult> optimal = wds.solveWDPWithBranchAndBound(new ArrayList<>(results), new int[]{1, 1, 1, 1});
+            // s3 com utilidade 0.9 não cobre P3/P4, mas s2 cobre: 0.9 + 0.6 + 0.5
+            assertEquals(2.0, total(optimal), 1e-9, mode.name());
+            assertEquals(3, optimal.size(), mode.name());
+        }
+    }
+
+    @Test
+    void testSolve_InfeasibleDemandReturnsEmpty() {
+        List<NegotiationResult> results = new ArrayList<>();
+        results.add(result("s1", 0.6, 1, 1, 0, 0));
+        results.add(result("s2", 0.5, 0, 1, 0, 0));
+
+        for (SolverMode mode : SolverMode.values()) {
+            WinnerDeterminationService wds = new WinnerDeterminationService(mode);
+            assertTrue(wds.solveWDPWithBranchAndBound(new ArrayList<>(results), new int[]{0, 0, 0, 1}).isEmpty(), mode.name());
+        }
+    }
+
+    @Test
+    void testBitmaskMode_EquivalentToListMode() {
+        Random rnd = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int products = 2 + rnd.nextInt(6);
+            List<NegotiationResult> results = randomResults(rnd, 1 + rnd.nextInt(8), products);
+            int[] demand = randomDemand(rnd, products);
+
+            List<NegotiationResult> expected = new WinnerDeterminationService(SolverMode.LIST)
+                    .solveWDPWithBranchAndBound(new ArrayList<>(results), demand);
+            List<NegotiationResult> actual = new WinnerDeterminationService(SolverMode.BITMASK)
+                    .solveWDPWithBranchAndBound(new ArrayList<>(results), demand);
+
+            assertEquals(expected, actual, "round " + round);
+        }
+    }
+
+    @Test
+    void testBounds_KeepOptimumAndReportPrunes() {
+        Random rnd = new Random(7);
+        WdpBound[][] configurations = {
+                {WdpBound.suffixSum()},
+                {WdpBound.supplierBest()},
+                {WdpBound.suffixSum(), WdpBound.supplierBest(), WdpBound.linearRelaxation(Integer.MAX_VALUE)}
+        };
+        long lpPrunes = 0;
+        for (int round = 0; round < 100; round++) {
+            int products = 2 + rnd.nextInt(6);
+            List<NegotiationResult> results = randomResults(rnd, 2 + rnd.nextInt(8), products);
+            int[] demand = randomDemand(rnd, products);
+            double expected = total(new WinnerDeterminationService(SolverMode.LIST)
+                    .solveWDPWithBranchAndBound(new ArrayList<>(results), demand));
+
+            for (WdpBound[] bounds : configurations) {
+                BitmaskWinnerDetermination solver = new BitmaskWinnerDetermination(bounds);
+                assertEquals(expected, total(solver.solve(results, demand)), 1e-9, "round " + round);
+            }
+            lpPrunes += configurations[2][2].getPrunedNodes();
+        }
+        assertTrue(lpPrunes > 0);
+    }
+
+    @Test
+    void testLinearRelaxation_DetectsInfeasibleNodes() {
+        // Um único fornecedor com dois pacotes disjuntos não cobre P1 e P2 ao mesmo tempo.
+        List<NegotiationResult> results = new ArrayList<>();
+        results.add(result("s1", 0.9, 1, 0));
+        results.add(result("s1", 0.8, 0, 1));
+
+        WdpBound lp = WdpBound.linearRelaxation(Integer.MAX_VALUE);
+        BitmaskWinnerDetermination solver = new BitmaskWinnerDetermination(lp);
+        assertTrue(solver.solve(results, new int[]{1, 1}).isEmpty());
+        assertEquals(1, solver.getNodesExplored());
+        assertEquals(1, lp.getPrunedNodes());
+    }
+
+    @Test
+    void testParallelMode_MatchesSequentialOptimum() {
+        Random rnd = new Random(11);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 50; round++) {
+                int products = 2 + rnd.nextInt(8);
+                List<NegotiationResult> results = randomResults(rnd, 4 + rnd.nextInt(10), products);
+                int[] demand = randomDemand(rnd, products);
+
+                double expected = total(new WinnerDeterminationService(SolverMode.BITMASK)
+                        .solveWDPWithBranchAndBound(new ArrayList<>(results), demand));
+                List<NegotiationResult> actual = new ParallelWinnerDetermination(pool).solve(results, demand);
+                assertEquals(expected, total(actual), 1e-9, "round " + round);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testConcurrentSolves_OneServicePerCycle() throws Exception {
+        // Como no CA: cada ciclo resolve com a sua instância, ao mesmo tempo, no mesmo pool.
+        // Instâncias acima de PARALLEL_THRESHOLD, para que o AUTO também possa cair na busca paralela.
+        List<SolverMode> modes = List.of(SolverMode.PARALLEL, SolverMode.PARALLEL, SolverMode.AUTO);
+        Random rnd = new Random(17);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 10; round++) {
+                int products = 4 + rnd.nextInt(6);
+                List<List<NegotiationResult>> cycles = new ArrayList<>();
+                for (int c = 0; c < modes.size(); c++) {
+                    List<NegotiationResult> results = randomResults(rnd,
+                            WinnerDeterminationService.PARALLEL_THRESHOLD + rnd.nextInt(8), products);
+                    assertTrue(results.size() >= WinnerDeterminationService.PARALLEL_THRESHOLD);
+                    cycles.add(results);
+                }
+                int[] demand = randomDemand(rnd, products);
+                CyclicBarrier start = new CyclicBarrier(cycles.size());
+                List<CompletableFuture<List<NegotiationResult>>> solves = new ArrayList<>();
+                for (int c = 0; c < cycles.size(); c++) {
+                    List<NegotiationResult> results = cycles.get(c);
+                    SolverMode mode = modes.get(c);
+                    solves.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await(5, TimeUnit.SECONDS);
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                        WinnerDeterminationService wds = new WinnerDeterminationService(mode);
+                        wds.setForkJoinPool(pool);
+                        return wds.solveWDPWithBranchAndBound(new ArrayList<>(results), demand);
+                    }, pool));
+                }
+                for (int c = 0; c < cycles.size(); c++) {
+                    double expected = total(new WinnerDeterminationService(SolverMode.BITMASK)
+                            .solveWDPWithBranchAndBound(new ArrayList<>(cycles.get(c)), demand));
+                    assertEquals(expected, total(solves.get(c).get(10, TimeUnit.SECONDS)), 1e-9,
+                            "round " + round + ", " + modes.get(c));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testAnytimeMode_ReachesOptimumWithinBudget() {
+        Random rnd = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            int products = 2 + rnd.nextInt(6);
+            List<NegotiationResult> results = randomResults(rnd, 2 + rnd.nextInt(8), products);
+            int[] demand = randomDemand(rnd, products);
+
+            double expected = total(new WinnerDeterminationService(SolverMode.LIST)
+                    .solveWDPWithBranchAndBound(new ArrayList<>(results), demand));
+            WinnerDeterminationResult result = new WinnerDeterminationService().solveAnytime(results, demand, 1000);
+            assertTrue(result.isOptimal(), "round " + round);
+            assertEquals(expected, result.getTotalUtility(), 1e-9, "round " + round);
+            assertEquals(0.0, result.getOptimalityGap(), 1e-12);
+        }
+    }
+
+    @Test
+    void testAnytimeMode_ZeroBudgetKeepsGreedySeed() {
+        Random rnd = new Random(5);
+        List<NegotiationResult> results = randomResults(rnd, 60, 12);
+        int[] demand = new int[12];
+        Arrays.fill(demand, 1);
+
+        WinnerDeterminationResult result = new AnytimeWinnerDetermination().solve(results, demand, 0);
+        if (!result.getWinners().isEmpty()) {
+            assertEquals(total(result.getWinners()), result.getTotalUtility(), 1e-9);
+        }
+        assertTrue(result.getUpperBound() >= result.getTotalUtility());
+        assertTrue(result.getOptimalityGap() >= 0.0 && result.getOptimalityGap() <= 1.0);
+    }
+
+    @Test
+    void testDynamicProgramming_MatchesBranchAndBound() {
+        Random rnd = new Random(13);
+        for (int round = 0; round < 200; round++) {
+            int products = 1 + rnd.nextInt(8);
+            List<NegotiationResult> results = randomResults(rnd, 1 + rnd.nextInt(10), products);
+            int[] demand = randomDemand(rnd, products);
+
+            double expected = total(new WinnerDeterminationService(SolverMode.BITMASK)
+                    .solveWDPWithBranchAndBound(new ArrayList<>(results), demand));
+            List<NegotiationResult> actual = new DynamicProgrammingWinnerDetermination().solve(results, demand);
+            assertEquals(expected, total(actual), 1e-9, "round " + round);
+            assertEquals(actual.size(), actual.stream().map(NegotiationResult::getSupplierName).distinct().count());
+        }
+    }
+
+    @Test
+    void testAutoMode_SelectsByProductAndResultCount() {
+        assertEquals(SolverMode.BITMASK, WinnerDeterminationService.selectMode(3, 4, true));
+        assertEquals(SolverMode.DYNAMIC_PROGRAMMING, WinnerDeterminationService.selectMode(300, 4, true));
+        assertEquals(SolverMode.PARALLEL, WinnerDeterminationService.selectMode(300, 4, false));
+        assertEquals(SolverMode.BITMASK, WinnerDeterminationService.selectMode(10, 12, true));
+    }
+
+    @Test
+    void testLastNodesExplored_ResetByUncountedSolvers() {
+        WinnerDeterminationService wds = new WinnerDeterminationService(SolverMode.AUTO);
+        List<NegotiationResult> small = new ArrayList<>();
+        small.add(result("s1", 0.6, 1, 1, 0, 0));
+        small.add(result("s2", 0.5, 0, 0, 1, 1));
+        small.add(result("s3", 0.4, 1, 0, 1, 0));
+        wds.solveWDPWithBranchAndBound(small, new int[]{1, 1, 1, 1});
+        assertTrue(wds.getLastNodesExplored() > 0);
+
+        // Instância grande: o AUTO usa a programação dinâmica ou a busca paralela, que não contam nós.
+        List<NegotiationResult> large = randomResults(new Random(23), 60, 4);
+        wds.solveWDPWithBranchAndBound(large, new int[]{1, 1, 1, 1});
+        assertEquals(0L, wds.getLastNodesExplored());
+    }
+
+    @Test
+    void testIncremental_TracksOptimumAsResultsArrive() {
+        Random rnd = new Random(17);
+        for (int round = 0; round < 50; round++) {
+            int products = 1 + rnd.nextInt(6);
+            List<NegotiationResult> results = randomResults(rnd, 1 + rnd.nextInt(8), products);
+            Collections.shuffle(results, rnd);
+            int[] demand = randomDemand(rnd, products);
+
+            IncrementalWinnerDetermination incremental = new IncrementalWinnerDetermination(demand);
+            List<NegotiationResult> arrived = new ArrayList<>();
+            for (NegotiationResult r : results) {
+                incremental.add(r);
+                arrived.add(r);
+                double expected = total(new WinnerDeterminationService(SolverMode.BITMASK)
+                        .solveWDPWithBranchAndBound(new ArrayList<>(arrived), demand));
+                assertEquals(expected, incremental.getCurrentUtility(), 1e-9, "round " + round);
+                assertEquals(expected, total(incremental.getCurrentAllocation()), 1e-9, "round " + round);
+            }
+        }
+    }
+
+    /**
+     * Força bruta multiunidade: enumera todos os subconjuntos sem fornecedor repetido.
+     */
+    private static double bruteForceMultiUnit(List<NegotiationResult> results, int[] demand) {
+        double best = 0.0;
+        int n = results.size();
+        for (int subset = 1; subset < (1 << n); subset++) {
+            long[] supplied = new long[demand.length];
+            Set<String> suppliers = new HashSet<>();
+            double utility = 0.0;
+            boolean valid = true;
+            for (int i = 0; i < n && valid; i++) {
+                if ((subset & (1 << i)) == 0) continue;
+                NegotiationResult r = results.get(i);
+                valid = suppliers.add(r.getSupplierName());
+                utility += r.getUtility();
+                int[] q = r.getFinalBid().getQuantities();
+                for (int p = 0; p < demand.length; p++) supplied[p] += q[p];
+            }
+            for (int p = 0; p < demand.length && valid; p++) {
+                valid = supplied[p] >= demand[p];
+            }
+            if (valid) best = Math.max(best, utility);
+        }
+        return best;
+    }
+
+    @Test
+    void testMultiUnit_MatchesBruteForce() {
+        Random rnd = new Random(23);
+        for (int round = 0; round < 200; round++) {
+            int products = 1 + rnd.nextInt(4);
+            List<NegotiationResult> results = new ArrayList<>();
+            int count = 1 + rnd.nextInt(10);
+            for (int i = 0; i < count; i++) {
+                int[] bundle = new int[products];
+                int[] quantities = new int[products];
+                for (int p = 0; p < products; p++) {
+                    if (rnd.nextBoolean()) {
+                        bundle[p] = 1;
+                        quantities[p] = 500 * (1 + rnd.nextInt(4));
+                    }
+                }
+                Bid bid = new Bid(new ProductBundle(bundle), new ArrayList<>(), quantities);
+                results.add(new NegotiationResult(bid, 0.05 + rnd.nextDouble() * 0.9, "s" + rnd.nextInt(6)));
+            }
+            int[] demand = new int[products];
+            for (int p = 0; p < products; p++) {
+                demand[p] = rnd.nextInt(3) == 0 ? 0 : 500 * (1 + rnd.nextInt(5));
+            }
+
+            double expected = bruteForceMultiUnit(results, demand);
+            List<NegotiationResult> actual = new WinnerDeterminationService(SolverMode.MULTI_UNIT)
+                    .solveWDPWithBranchAndBound(results, demand);
+            assertEquals(expected, total(actual), 1e-9, "round " + round);
+        }
+    }
+
+    @Test
+    void testMultiUnit_RequiresQuantitiesNotJustCoverage() {
+        // P1 = 1500 unidades: nenhum fornecedor sozinho atende, s1 + s3 atendem.
+        List<NegotiationResult> results = new ArrayList<>();
+        results.add(new NegotiationResult(new Bid(new ProductBundle(new int[]{1, 1, 0, 0}), new ArrayList<>(),
+                new int[]{1000, 1000, 0, 0}), 0.6, "s1"));
+        results.add(new NegotiationResult(new Bid(new ProductBundle(new int[]{0, 0, 1, 1}), new ArrayList<>(),
+                new int[]{0, 0, 2000, 2000}), 0.7, "s2"));
+        results.add(new NegotiationResult(new Bid(new ProductBundle(new int[]{1, 0, 1, 0}), new ArrayList<>(),
+                new int[]{1000, 0, 2000, 0}), 0.5, "s3"));
+
+        int[] demand = {1500, 0, 2500, 0};
+        List<NegotiationResult> winners = new WinnerDeterminationService(SolverMode.MULTI_UNIT)
+                .solveWDPWithBranchAndBound(results, demand);
+        assertEquals(3, winners.size());
+        assertTrue(new WinnerDeterminationService(SolverMode.MULTI_UNIT)
+                .solveWDPWithBranchAndBound(results, new int[]{2500, 0, 0, 0}).isEmpty());
+    }
+}